@@ -9,11 +9,35 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation by configurations.getting
+val jmhAnnotationProcessor by configurations.getting
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks. Pass -PjmhArgs=\"...\" to forward options to JMH."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    val extraArgs = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    args = listOf("-rf", "json", "-rff", resultFile.path) + extraArgs
+    doFirst { resultFile.parentFile.mkdirs() }
+}
@@ -0,0 +1,37 @@
+package com.spaceinvaders.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CleanupBenchmark {
+
+  @Param({"50", "1000", "10000", "100000"})
+  public int invaderCount;
+
+  private GameEngine engine;
+
+  // Every tenth invader and every other bullet is dead, roughly a busy tick
+  @Setup(Level.Invocation)
+  public void setUp() {
+    engine = HeadlessGame.withFormation(42L, invaderCount).getEngine();
+    GameEngineBenchmark.addPlayerBullets(engine, Math.max(10, invaderCount / 10));
+    for (int i = 0; i < engine.getInvaders().size(); i += 10) {
+      engine.getInvaders().get(i).destroy();
+    }
+    for (int i = 0; i < engine.getBullets().size(); i += 2) {
+      engine.getBullets().get(i).destroy();
+    }
+  }
+
+  @Benchmark
+  public GameEngine cleanupDestroyedEntities() {
+    engine.cleanupDestroyedEntities();
+    return engine;
+  }
+}
@@ -0,0 +1,83 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.entities.Bullet;
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.enums.CollisionMode;
+import com.spaceinvaders.factory.EntityFactory;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameEngineBenchmark {
+
+  @Param({"50", "1000", "10000", "100000"})
+  public int invaderCount;
+
+  @Param({"SWEEP_AND_PRUNE", "GRID"})
+  public CollisionMode collisionMode;
+
+  // Fork-join pool size for the per-entity loops; 1 keeps them sequential
+  @Param({"1", "4"})
+  public int parallelism;
+
+  private HeadlessGame game;
+  private GameEngine engine;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    game = HeadlessGame.withFormation(42L, invaderCount);
+    engine = game.getEngine();
+    engine.setCollisionMode(collisionMode);
+    if (parallelism > 1) {
+      engine.setParallelPool(new ForkJoinPool(parallelism));
+    }
+    addPlayerBullets(engine, Math.max(10, invaderCount / 10));
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    if (engine.getParallelPool() != null) {
+      engine.getParallelPool().shutdown();
+    }
+  }
+
+  // Bullets sit in the gaps between invader rows, clear of both rows over
+  // their whole swept move, so every call does the full broad-phase work
+  // without destroying the formation
+  static void addPlayerBullets(GameEngine engine, int count) {
+    Random random = new Random(7L);
+    int rows = Math.max(1, (engine.getScreenHeight() - 300) / 40);
+    EntityStore<Bullet> bullets = engine.getBullets();
+    for (int i = 0; i < count; i++) {
+      int x = random.nextInt(engine.getScreenWidth());
+      int y = 50 + random.nextInt(rows) * 40 + 21;
+      EntityFactory.createPlayerBullet(bullets, x, y);
+    }
+  }
+
+  @Benchmark
+  public GameEngine update() {
+    game.tick();
+    return engine;
+  }
+
+  @Benchmark
+  public GameEngine checkCollisions() {
+    engine.checkCollisions();
+    return engine;
+  }
+
+  @Benchmark
+  public GameEngine updateInvaders() {
+    engine.updateInvaders();
+    engine.getBullets().clear();
+    return engine;
+  }
+}
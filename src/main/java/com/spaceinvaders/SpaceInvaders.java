@@ -1,9 +1,163 @@
 package com.spaceinvaders;
 
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.TickClock;
+import com.spaceinvaders.enums.RenderMode;
+import com.spaceinvaders.jfr.FlightRecording;
+import com.spaceinvaders.level.LevelParser;
+import com.spaceinvaders.metrics.GameMetrics;
+import com.spaceinvaders.metrics.MetricsDumper;
+import com.spaceinvaders.net.Protocol;
+import com.spaceinvaders.net.RemoteGame;
+import com.spaceinvaders.replay.ReplayRecorder;
+import com.spaceinvaders.replay.Snapshot;
+import com.spaceinvaders.replay.SnapshotWriter;
 import com.spaceinvaders.ui.GameFrame;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import javax.management.JMException;
 
 public class SpaceInvaders {
-  public static void main(String[] args) {
-    new GameFrame();
+  private static final int DEFAULT_SNAPSHOT_INTERVAL = GameLoop.DEFAULT_TICK_RATE * 10;
+  private static final int DEFAULT_METRICS_INTERVAL_SECONDS = 5;
+  private static final Path DEFAULT_JFR_PATH = Path.of("spaceinvaders.jfr");
+
+  public static void main(String[] args) throws IOException, JMException {
+    RenderMode renderMode = RenderMode.PASSIVE;
+    int frameCap = 0;
+    boolean fullRepaint = false;
+    Path replayPath = null;
+    Path snapshotDir = null;
+    Path restorePath = null;
+    Path levelsPath = null;
+    int snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+    boolean metrics = false;
+    Path metricsPath = null;
+    int metricsInterval = DEFAULT_METRICS_INTERVAL_SECONDS;
+    Path jfrPath = null;
+    String jfrSettings = FlightRecording.DEFAULT_SETTINGS;
+    InetSocketAddress server = null;
+    long session = 0;
+    int interpolationTicks = RemoteGame.DEFAULT_INTERPOLATION_TICKS;
+
+    for (String arg : args) {
+      if (arg.equals("--active-rendering")) {
+        renderMode = RenderMode.ACTIVE;
+      } else if (arg.equals("--full-repaint")) {
+        fullRepaint = true;
+      } else if (arg.startsWith("--fps=")) {
+        frameCap = Integer.parseInt(arg.substring("--fps=".length()));
+      } else if (arg.startsWith("--record=")) {
+        replayPath = Path.of(arg.substring("--record=".length()));
+      } else if (arg.startsWith("--snapshot-dir=")) {
+        snapshotDir = Path.of(arg.substring("--snapshot-dir=".length()));
+      } else if (arg.startsWith("--snapshot-interval=")) {
+        snapshotInterval = Integer.parseInt(arg.substring("--snapshot-interval=".length()));
+        if (snapshotInterval <= 0) {
+          System.err.println("Usage: --snapshot-interval=<ticks>, at least 1");
+          System.exit(2);
+        }
+      } else if (arg.startsWith("--restore=")) {
+        restorePath = Path.of(arg.substring("--restore=".length()));
+      } else if (arg.startsWith("--levels=")) {
+        levelsPath = Path.of(arg.substring("--levels=".length()));
+      } else if (arg.equals("--metrics")) {
+        metrics = true;
+      } else if (arg.startsWith("--metrics-dump=")) {
+        metrics = true;
+        metricsPath = Path.of(arg.substring("--metrics-dump=".length()));
+      } else if (arg.startsWith("--metrics-interval=")) {
+        metricsInterval = Integer.parseInt(arg.substring("--metrics-interval=".length()));
+      } else if (arg.equals("--jfr")) {
+        jfrPath = DEFAULT_JFR_PATH;
+      } else if (arg.startsWith("--jfr=")) {
+        jfrPath = Path.of(arg.substring("--jfr=".length()));
+      } else if (arg.startsWith("--jfr-settings=")) {
+        jfrSettings = arg.substring("--jfr-settings=".length());
+      } else if (arg.startsWith("--connect=")) {
+        server = parseAddress(arg.substring("--connect=".length()));
+      } else if (arg.startsWith("--session=")) {
+        session = Long.parseLong(arg.substring("--session=".length()));
+      } else if (arg.startsWith("--interpolation=")) {
+        interpolationTicks = Integer.parseInt(arg.substring("--interpolation=".length()));
+      }
+    }
+
+    // Started first so the recording covers loading and the first level
+    if (jfrPath != null) {
+      FlightRecording.start(jfrPath, jfrSettings);
+    }
+
+    // The game runs on the server, so recording, snapshots and metrics do not apply
+    if (server != null) {
+      new GameFrame(RemoteGame.connect(server, session, interpolationTicks),
+          frameCap > 0 ? frameCap : GameFrame.displayRefreshRate(), fullRepaint);
+      return;
+    }
+
+    GameEngine gameEngine;
+    if (restorePath != null) {
+      gameEngine = Snapshot.load(restorePath).restore(GameManager.getInstance());
+      if (levelsPath != null) {
+        System.err.println("--levels ignored, a snapshot restores the levels it was taken with");
+      }
+    } else if (levelsPath != null) {
+      gameEngine = new GameEngine(GameManager.getInstance(), new TickClock(GameLoop.DEFAULT_TICK_RATE),
+          System.nanoTime(), GameEngine.SCREEN_WIDTH, GameEngine.SCREEN_HEIGHT, LevelParser.load(levelsPath));
+    } else {
+      gameEngine = new GameEngine();
+    }
+    gameEngine.setPreloadExecutor(Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "level-preloader");
+      thread.setDaemon(true);
+      return thread;
+    }));
+    if (replayPath != null) {
+      if (restorePath != null) {
+        System.err.println("--record needs a new game, ignored when restoring a snapshot");
+      } else {
+        record(gameEngine, replayPath);
+      }
+    }
+    if (snapshotDir != null) {
+      gameEngine.setSnapshotWriter(new SnapshotWriter(snapshotDir, GameLoop.DEFAULT_TICK_RATE, snapshotInterval));
+    }
+    if (metrics) {
+      GameMetrics gameMetrics = new GameMetrics();
+      gameMetrics.registerMBean();
+      gameEngine.setMetrics(gameMetrics);
+      if (metricsPath != null) {
+        new MetricsDumper(gameMetrics, metricsPath).start(metricsInterval);
+      }
+    }
+
+    new GameFrame(gameEngine, renderMode, frameCap > 0 ? frameCap : GameFrame.displayRefreshRate(), fullRepaint);
+  }
+
+  // host, host:port or :port
+  private static InetSocketAddress parseAddress(String address) {
+    int colon = address.lastIndexOf(':');
+    String host = colon >= 0 ? address.substring(0, colon) : address;
+    int port = colon >= 0 ? Integer.parseInt(address.substring(colon + 1)) : Protocol.PORT;
+    return new InetSocketAddress(host.isEmpty() ? "localhost" : host, port);
+  }
+
+  // The replay is written when the JVM exits, whichever way the game was closed
+  private static void record(GameEngine gameEngine, Path path) {
+    ReplayRecorder recorder = ReplayRecorder.attach(gameEngine, GameLoop.DEFAULT_TICK_RATE);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      synchronized (gameEngine) {
+        recorder.finish(gameEngine.getTick(), gameEngine.getGameManager());
+      }
+      try {
+        recorder.save(path);
+      } catch (IOException e) {
+        System.err.println("Could not save replay: " + e.getMessage());
+      }
+    }, "replay-writer"));
   }
-}
\ No newline at end of file
+}
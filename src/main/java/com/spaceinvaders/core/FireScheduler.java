@@ -0,0 +1,176 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.entities.Bullet;
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Invader;
+import com.spaceinvaders.enums.InvaderType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class FireScheduler {
+  private static final int TYPE_COUNT = InvaderType.values().length;
+  private static final int MAX_SHOTS_PER_TICK = 32;
+  private static final double CDF_EPSILON = 1e-9;
+
+  private Invader[][] columns = new Invader[0][];
+  private int[] columnSizes = new int[0];
+  private int[] lowest = new int[0];
+  private int[] liveColumns = new int[0];
+  private int liveColumnCount;
+  private int columnCount;
+
+  private final int[] liveByType = new int[TYPE_COUNT];
+  private final double[] chanceByType = new double[TYPE_COUNT];
+
+  private final double[] shotCdf = new double[MAX_SHOTS_PER_TICK + 1];
+  private int shotCdfLength;
+  private double cdfRate = -1;
+
+  public void reset(int columnCount) {
+    if (columns.length < columnCount) {
+      columns = Arrays.copyOf(columns, columnCount);
+      columnSizes = new int[columnCount];
+      lowest = new int[columnCount];
+      liveColumns = new int[columnCount];
+    }
+    this.columnCount = columnCount;
+    Arrays.fill(columnSizes, 0);
+    Arrays.fill(liveByType, 0);
+    liveColumnCount = 0;
+    cdfRate = -1;
+  }
+
+  // Invaders must be added top row first so the last one in a column is the lowest
+  public void add(Invader invader, int column) {
+    Invader[] members = columns[column];
+    int size = columnSizes[column];
+    if (members == null) {
+      members = columns[column] = new Invader[8];
+    } else if (size == members.length) {
+      members = columns[column] = Arrays.copyOf(members, size * 2);
+    }
+    if (size == 0) {
+      liveColumns[liveColumnCount++] = column;
+    }
+    members[size] = invader;
+    columnSizes[column] = size + 1;
+    lowest[column] = size;
+
+    liveByType[invader.getType().ordinal()]++;
+  }
+
+  public void setShootChance(int type, double chance) {
+    chanceByType[type] = chance;
+    cdfRate = -1;
+  }
+
+  public void onDestroyed(Invader invader) {
+    liveByType[invader.getType().ordinal()]--;
+  }
+
+  // One draw decides how many invaders fire this tick, then one draw per shot picks the column
+  public int fire(GameRandom random, EntityStore<Bullet> bullets) {
+    if (liveColumnCount == 0) {
+      return 0;
+    }
+
+    int shots = sampleShotCount(random.nextDouble());
+    int fired = 0;
+    while (fired < shots && liveColumnCount > 0) {
+      int pick = random.nextInt(liveColumnCount);
+      Invader shooter = lowestLive(liveColumns[pick]);
+      if (shooter == null) {
+        liveColumns[pick] = liveColumns[--liveColumnCount];
+        continue;
+      }
+      shooter.shoot(bullets);
+      fired++;
+    }
+    return fired;
+  }
+
+  private Invader lowestLive(int column) {
+    Invader[] members = columns[column];
+    int index = lowest[column];
+    while (index >= 0 && !members[index].isActive()) {
+      members[index] = null;
+      index--;
+    }
+    lowest[column] = index;
+    return index >= 0 ? members[index] : null;
+  }
+
+  private int sampleShotCount(double uniform) {
+    double rate = 0;
+    for (int type = 0; type < TYPE_COUNT; type++) {
+      rate += liveByType[type] * chanceByType[type];
+    }
+    if (rate != cdfRate) {
+      buildShotCdf(rate);
+    }
+
+    int shots = 0;
+    while (shots < shotCdfLength - 1 && uniform > shotCdf[shots]) {
+      shots++;
+    }
+    return shots;
+  }
+
+  // Poisson distribution of the number of shots, matching the sum of the per-invader chances
+  private void buildShotCdf(double rate) {
+    double probability = Math.exp(-rate);
+    double cumulative = probability;
+    shotCdf[0] = cumulative;
+    shotCdfLength = 1;
+    while (shotCdfLength <= MAX_SHOTS_PER_TICK && cumulative < 1 - CDF_EPSILON) {
+      probability *= rate / shotCdfLength;
+      cumulative += probability;
+      shotCdf[shotCdfLength++] = cumulative;
+    }
+    shotCdf[shotCdfLength - 1] = 1.0;
+    cdfRate = rate;
+  }
+
+  // Columns as invader slots, top first, down to the lowest one still alive;
+  // dead members are dropped since the cursor would skip them anyway
+  public void write(ByteBuffer out) {
+    out.putInt(columnCount);
+    for (int column = 0; column < columnCount; column++) {
+      Invader[] members = columns[column];
+      int count = 0;
+      for (int i = 0; i <= lowest[column] && i < columnSizes[column]; i++) {
+        if (members[i].isActive()) {
+          count++;
+        }
+      }
+      out.putInt(count);
+      for (int i = 0; i <= lowest[column] && i < columnSizes[column]; i++) {
+        if (members[i].isActive()) {
+          out.putInt(members[i].getSlot());
+        }
+      }
+    }
+    out.putInt(liveColumnCount);
+    for (int i = 0; i < liveColumnCount; i++) {
+      out.putInt(liveColumns[i]);
+    }
+  }
+
+  public void read(ByteBuffer in, EntityStore<Invader> invaders) {
+    reset(in.getInt());
+    for (int column = 0; column < columnCount; column++) {
+      lowest[column] = -1;
+      int count = in.getInt();
+      for (int i = 0; i < count; i++) {
+        add(invaders.get(in.getInt()), column);
+      }
+    }
+    // The pick order depends on the order columns joined and left this list
+    liveColumnCount = in.getInt();
+    for (int i = 0; i < liveColumnCount; i++) {
+      liveColumns[i] = in.getInt();
+    }
+  }
+
+  public int getLiveColumnCount() { return liveColumnCount; }
+}
@@ -0,0 +1,71 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.entities.EntityStore;
+
+public class Formation {
+  private int left;
+  private int right;
+  private int bottom;
+  private boolean empty = true;
+  private boolean stale = true;
+
+  public void beginSweep() {
+    left = Integer.MAX_VALUE;
+    right = Integer.MIN_VALUE;
+    bottom = Integer.MIN_VALUE;
+    empty = true;
+    stale = false;
+  }
+
+  public void include(int x, int y, int width, int height) {
+    left = Math.min(left, x);
+    right = Math.max(right, x + width);
+    bottom = Math.max(bottom, y + height);
+    empty = false;
+  }
+
+  // Folds in bounds swept separately, e.g. by one parallel chunk
+  public void merge(Formation other) {
+    if (other.empty) {
+      return;
+    }
+    left = Math.min(left, other.left);
+    right = Math.max(right, other.right);
+    bottom = Math.max(bottom, other.bottom);
+    empty = false;
+  }
+
+  public void recompute(EntityStore<?> invaders) {
+    beginSweep();
+    for (int i = 0; i < invaders.size(); i++) {
+      if (invaders.isActive(i)) {
+        include(invaders.getX(i), invaders.getY(i), invaders.getWidth(i), invaders.getHeight(i));
+      }
+    }
+  }
+
+  // Only an invader on the outline can shrink the bounds
+  public void onDestroyed(int x, int y, int width, int height) {
+    if (x <= left || x + width >= right || y + height >= bottom) {
+      stale = true;
+    }
+  }
+
+  public void invalidate() {
+    stale = true;
+  }
+
+  // Whether moving by step (signed, px) would cross the margin
+  public boolean reachesEdge(int step, int screenWidth, int margin) {
+    if (empty) {
+      return false;
+    }
+    return step > 0 ? right + step >= screenWidth - margin : left + step <= margin;
+  }
+
+  public boolean isStale() { return stale; }
+  public boolean isEmpty() { return empty; }
+  public int getLeft() { return left; }
+  public int getRight() { return right; }
+  public int getBottom() { return bottom; }
+}
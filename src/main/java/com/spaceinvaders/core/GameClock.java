@@ -0,0 +1,16 @@
+package com.spaceinvaders.core;
+
+public interface GameClock {
+  GameClock SYSTEM = System::currentTimeMillis;
+
+  long currentTimeMillis();
+
+  // Called by the engine after each tick; wall-clock implementations ignore it
+  default void onTick(long tick) {
+  }
+
+  // The rate the engine is stepped at, which game speeds are scaled by
+  default int getTicksPerSecond() {
+    return GameLoop.DEFAULT_TICK_RATE;
+  }
+}
@@ -2,66 +2,222 @@ package com.spaceinvaders.core;
 
 import com.spaceinvaders.entities.*;
 import com.spaceinvaders.factory.EntityFactory;
+import com.spaceinvaders.factory.EntityPool;
+import com.spaceinvaders.jfr.CollisionBatchEvent;
+import com.spaceinvaders.jfr.TickEvent;
+import com.spaceinvaders.level.LevelSet;
+import com.spaceinvaders.level.LevelTemplate;
+import com.spaceinvaders.metrics.GameMetrics;
+import com.spaceinvaders.strategy.FormationDirection;
 import com.spaceinvaders.strategy.InvaderMovement;
 import com.spaceinvaders.strategy.PlayerMovement;
+import com.spaceinvaders.strategy.TickScale;
 import com.spaceinvaders.enums.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import com.spaceinvaders.replay.ReplayRecorder;
+import com.spaceinvaders.replay.SnapshotWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class GameEngine {
-  private static final int SCREEN_WIDTH = 800;
-  private static final int SCREEN_HEIGHT = 600;
+  public static final int SCREEN_WIDTH = 800;
+  public static final int SCREEN_HEIGHT = 600;
+  // Co-op players per game, whichever host runs it
+  public static final int MAX_PLAYERS = 4;
+  private static final Logger LOGGER = Logger.getLogger(GameEngine.class.getName());
+  private static final int GRID_CELL_SIZE = 40;
+  private static final int EDGE_MARGIN = 10;
+  private static final int DROP_DISTANCE = 20;
+  // Base ticks, see TickScale
+  private static final int LEVEL_TRANSITION_BASE_TICKS = 30;
+  private static final int PLAYER_BULLET = BulletType.PLAYER.ordinal();
+  private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+  private static final InvaderType[] INVADER_TYPES = InvaderType.values();
+  private static final int BULLET_POOL_CAPACITY = 4096;
+  private static final int POWER_UP_POOL_CAPACITY = 256;
+  private static final int INVADER_POOL_CAPACITY = 16384;
+  private static final int INPUT_QUEUE_CAPACITY = 256;
+  private static final int EVENT_CAPACITY = 256;
+  private static final InputCommand[] INPUT_COMMANDS = InputCommand.values();
 
   private Player player;
-  private List<Invader> invaders;
-  private List<Bullet> bullets;
-  private List<PowerUp> powerUps;
-  private GameManager gameManager;
-  private Random random;
+  private final EntityStore<Player> players = new EntityStore<>(1);
+  private int playerCount = 1;
+  private EntityStore<Invader> invaders = new EntityStore<>();
+  private final EntityStore<Bullet> bullets = new EntityStore<>();
+  private final EntityStore<PowerUp> powerUps = new EntityStore<>();
+  private final EntityPool<Bullet> bulletPool = new EntityPool<>(Bullet::new, BULLET_POOL_CAPACITY);
+  private final EntityPool<PowerUp> powerUpPool = new EntityPool<>(PowerUp::new, POWER_UP_POOL_CAPACITY);
+  private final GameManager gameManager;
+  private final LevelSet levels;
+  private int invaderSpeed;
+  private final GameClock clock;
+  private final TickScale tickScale;
+  private final long seed;
+  private final GameRandom random;
+  private final int screenWidth;
+  private final int screenHeight;
+  private final FormationDirection formationDirection = new FormationDirection();
+  private final InvaderMovement invaderMovement;
+  private final Formation formation = new Formation();
+  private FireScheduler fireScheduler = new FireScheduler();
+  private LevelPreloader preloader;
+  private CollisionMode collisionMode = CollisionMode.SWEEP_AND_PRUNE;
+  private final SpatialGrid invaderGrid;
+  private final SpatialGrid playerGrid;
+  private final SweepAndPrune sweepAndPrune = new SweepAndPrune();
+  private ParallelStep parallel;
+  private final GameEvents events = new GameEvents(EVENT_CAPACITY);
+  private final InputQueue inputQueue = new InputQueue(INPUT_QUEUE_CAPACITY);
+  private final boolean[] heldCommands = new boolean[INPUT_COMMANDS.length];
+  private final boolean[] tappedCommands = new boolean[INPUT_COMMANDS.length];
+  private volatile long tick;
+  private ReplayRecorder recorder;
+  private SnapshotWriter snapshotWriter;
+  private GameMetrics metrics;
+  private long collisionTests;
+  private final long[] phaseNanos = new long[TickPhase.values().length];
 
   public GameEngine() {
-    gameManager = GameManager.getInstance();
-    random = new Random();
+    this(GameManager.getInstance(), new TickClock(GameLoop.DEFAULT_TICK_RATE), System.nanoTime(),
+        SCREEN_WIDTH, SCREEN_HEIGHT);
+  }
+
+  public GameEngine(GameManager gameManager, GameClock clock, long seed,
+                    int screenWidth, int screenHeight) {
+    this(gameManager, clock, seed, screenWidth, screenHeight, LevelSet.classic());
+  }
+
+  public GameEngine(GameManager gameManager, GameClock clock, long seed,
+                    int screenWidth, int screenHeight, LevelSet levels) {
+    this.gameManager = gameManager;
+    this.levels = levels;
+    this.clock = clock;
+    this.tickScale = new TickScale(clock.getTicksPerSecond());
+    this.invaderMovement = new InvaderMovement(formationDirection, tickScale);
+    this.seed = seed;
+    this.random = new GameRandom(seed);
+    this.screenWidth = screenWidth;
+    this.screenHeight = screenHeight;
+    this.invaderGrid = new SpatialGrid(screenWidth, screenHeight, GRID_CELL_SIZE);
+    this.playerGrid = new SpatialGrid(screenWidth, screenHeight, GRID_CELL_SIZE);
+
+    EntityPool<Invader> invaderPool = new EntityPool<>(this::newInvaderView, INVADER_POOL_CAPACITY);
+    invaderPool.prefill(levels.getMaxCount());
+    for (int type = 0; type < INVADER_TYPES.length; type++) {
+      fireScheduler.setShootChance(type, tickScale.chance(levels.getShootChance(type)));
+    }
+
+    bulletPool.prefill(64);
+    powerUpPool.prefill(16);
+    invaders.setPool(invaderPool);
+    bullets.setPool(bulletPool);
+    powerUps.setPool(powerUpPool);
+    events.subscribe(gameManager);
     initializeGame();
   }
 
   private void initializeGame() {
-    player = EntityFactory.createPlayer(SCREEN_WIDTH / 2, SCREEN_HEIGHT - 50);
-    invaders = new ArrayList<>();
-    bullets = new ArrayList<>();
-    powerUps = new ArrayList<>();
+    events.clear();
+    players.clear();
+    invaders.clear();
+    bullets.clear();
+    powerUps.clear();
+    for (int i = 0; i < playerCount; i++) {
+      EntityFactory.createPlayer(players, spawnX(i), screenHeight - 50);
+    }
+    player = players.get(0);
 
-    createInvaderFormation();
     gameManager.startGame();
+    createInvaderFormation();
+    gameManager.beginLevel(invaders.getLiveCount());
+  }
+
+  public void restart() {
+    initializeGame();
+  }
+
+  // Co-op: another player on the same formation, sharing score and lives.
+  // Returns the player's index, which is also its slot and stays fixed.
+  public int addPlayer() {
+    if (playerCount == MAX_PLAYERS) {
+      throw new IllegalStateException("Game already has " + MAX_PLAYERS + " players");
+    }
+    EntityFactory.createPlayer(players, spawnX(playerCount), screenHeight - 50);
+    return playerCount++;
+  }
+
+  // Player 0 in the middle, the others alternating outwards
+  private int spawnX(int index) {
+    int offset = (index + 1) / 2 * Player.WIDTH * 2 * (index % 2 == 0 ? 1 : -1);
+    return Math.max(0, Math.min(screenWidth - Player.WIDTH, screenWidth / 2 + offset));
   }
 
   private void createInvaderFormation() {
-    com.spaceinvaders.strategy.InvaderMovement.resetGlobalDirection();
+    loadFormation(levels.templateFor(gameManager.getLevel()));
+  }
 
-    for (int row = 0; row < 5; row++) {
-      for (int col = 0; col < 10; col++) {
-        int x = 50 + col * 60;
-        int y = 50 + row * 40;
+  // The current level's wave tiled out to count invaders, e.g. for a stress test
+  void createInvaderFormation(int count, int cols) {
+    loadFormation(levels.templateFor(gameManager.getLevel()).tile(count, cols));
+  }
 
-        InvaderType type = switch (row) {
-          case 0, 1 -> InvaderType.FAST;
-          case 2, 3 -> InvaderType.MEDIUM;
-          default -> InvaderType.BASIC;
-        };
+  private void loadFormation(LevelTemplate template) {
+    int level = gameManager.getLevel();
+    LevelPreloader.fill(template, level, invaders, fireScheduler);
+    beginFormation(template, level);
+    LOGGER.log(Level.FINE, "Loaded {0} invaders", invaders.size());
+  }
 
-        invaders.add(EntityFactory.createInvader(x, y, type));
-      }
+  private void beginFormation(LevelTemplate template, int level) {
+    formationDirection.reset();
+    formation.invalidate();
+    invaderSpeed = template.speedFor(level);
+    if (preloader != null) {
+      preloader.request(levels.templateFor(level + 1), level + 1);
     }
+  }
 
-    System.out.println("Created " + invaders.size() + " invaders");
+  // Invader views keep their movement while pooled, so a level only rebinds them
+  private Invader newInvaderView() {
+    Invader invader = new Invader();
+    invader.setMovementStrategy(invaderMovement);
+    return invader;
   }
 
   public void update() {
+    processInput();
+    clock.onTick(++tick);
+    step();
+
+    if (snapshotWriter != null) {
+      snapshotWriter.onTick(this);
+    }
+  }
+
+  private void step() {
     if (!gameManager.isGameRunning()) {
       return;
     }
 
+    if (gameManager.isLevelTransition()) {
+      if (gameManager.advanceLevelTransition()) {
+        startNextLevel();
+      }
+      return;
+    }
+
+    GameMetrics metrics = this.metrics;
+    TickEvent tickEvent = new TickEvent();
+    CollisionBatchEvent collisionEvent = new CollisionBatchEvent();
+    if (metrics != null || tickEvent.isEnabled() || collisionEvent.isEnabled()) {
+      stepInstrumented(metrics, tickEvent, collisionEvent);
+      return;
+    }
+
     updatePlayer();
     updateInvaders();
     updateBullets();
@@ -69,183 +225,689 @@ public class GameEngine {
     checkCollisions();
     checkWinCondition();
     cleanupDestroyedEntities();
+    events.drain();
   }
 
-  private void updatePlayer() {
-    player.move();
+  // Same phases as step, timed for GameMetrics and JFR; kept separate so the
+  // plain path stays untouched. Either sink may be off.
+  private void stepInstrumented(GameMetrics metrics, TickEvent tickEvent, CollisionBatchEvent collisionEvent) {
+    tickEvent.begin();
+    long start = metrics != null ? metrics.beginTick() : System.nanoTime();
+    long testsBefore = collisionTests;
+    long t = start;
+    updatePlayer();
+    t = phase(TickPhase.UPDATE_PLAYER, t);
+    updateInvaders();
+    t = phase(TickPhase.UPDATE_INVADERS, t);
+    updateBullets();
+    t = phase(TickPhase.UPDATE_BULLETS, t);
+    updatePowerUps();
+    t = phase(TickPhase.UPDATE_POWER_UPS, t);
+
+    int bulletsBefore = bullets.getLiveCount();
+    int invadersBefore = invaders.getLiveCount();
+    collisionEvent.begin();
+    checkCollisions();
+    collisionEvent.end();
+    t = phase(TickPhase.CHECK_COLLISIONS, t);
+    if (collisionEvent.shouldCommit()) {
+      collisionEvent.tick = tick;
+      collisionEvent.mode = collisionMode.name();
+      collisionEvent.bullets = bulletsBefore;
+      collisionEvent.invaders = invadersBefore;
+      collisionEvent.tests = collisionTests - testsBefore;
+      collisionEvent.hits = bulletsBefore - bullets.getLiveCount();
+      collisionEvent.invadersDestroyed = invadersBefore - invaders.getLiveCount();
+      collisionEvent.commit();
+    }
+
+    checkWinCondition();
+    t = phase(TickPhase.CHECK_WIN_CONDITION, t);
+    cleanupDestroyedEntities();
+    t = phase(TickPhase.CLEANUP, t);
+    events.drain();
+    phase(TickPhase.DISPATCH_EVENTS, t);
+
+    if (metrics != null) {
+      metrics.endTick(start, phaseNanos, invaders.getLiveCount(), bullets.getLiveCount(),
+          powerUps.getLiveCount(), collisionTests - testsBefore);
+    }
+    tickEvent.end();
+    if (tickEvent.shouldCommit()) {
+      tickEvent.tick = tick;
+      tickEvent.level = gameManager.getLevel();
+      tickEvent.invaders = invaders.getLiveCount();
+      tickEvent.bullets = bullets.getLiveCount();
+      tickEvent.powerUps = powerUps.getLiveCount();
+      tickEvent.collisionTests = collisionTests - testsBefore;
+      tickEvent.setPhases(phaseNanos);
+      tickEvent.commit();
+    }
   }
 
-  private void updateInvaders() {
-    boolean shouldChangeDirection = false;
-    int currentDirection = com.spaceinvaders.strategy.InvaderMovement.getGlobalDirection();
+  private long phase(TickPhase phase, long since) {
+    long now = System.nanoTime();
+    phaseNanos[phase.ordinal()] = now - since;
+    return now;
+  }
 
-    // Verificar si algún invasor está en el borde
-    for (Invader invader : invaders) {
-      if (invader.isActive()) {
-        int currentX = invader.getX();
-        int nextX = currentX + (1 * currentDirection);
+  public void capturePreviousPositions() {
+    players.savePreviousPositions();
+    invaders.savePreviousPositions();
+    bullets.savePreviousPositions();
+    powerUps.savePreviousPositions();
+  }
 
-        if ((currentDirection == 1 && nextX + invader.getWidth() >= SCREEN_WIDTH - 10) ||
-            (currentDirection == -1 && nextX <= 10)) {
-          shouldChangeDirection = true;
-          System.out.println("Should change direction! Invader at X: " + currentX + ", Direction: " + currentDirection);
-          break;
-        }
-      }
+  private void updatePlayer() {
+    for (int i = 0; i < playerCount; i++) {
+      players.get(i).move();
+    }
+  }
+
+  void updateInvaders() {
+    if (formation.isStale()) {
+      formation.recompute(invaders);
     }
 
-    // Si necesitan cambiar dirección
-    if (shouldChangeDirection) {
-      com.spaceinvaders.strategy.InvaderMovement.changeGlobalDirection();
+    int direction = formationDirection.get();
+    boolean shouldChangeDirection = formation.reachesEdge(direction * tickScale.step(invaderSpeed, tick),
+        screenWidth, EDGE_MARGIN);
 
-      // Bajar todos los invasores
-      for (Invader invader : invaders) {
-        if (invader.isActive()) {
-          invader.setY(invader.getY() + 20);
-        }
+    if (shouldChangeDirection) {
+      if (LOGGER.isLoggable(Level.FINE)) {
+        LOGGER.fine("Should change direction! Formation at X: " + formation.getLeft() + "-"
+            + formation.getRight() + ", Direction: " + direction);
       }
+      formationDirection.change();
+    }
+
+    // Mover o bajar en una sola pasada
+    formation.beginSweep();
+    if (parallel != null && invaders.size() >= ParallelStep.MIN_ENTITIES) {
+      formation.merge(parallel.moveInvaders(invaders, invaderMovement, tick, shouldChangeDirection ? DROP_DISTANCE : 0));
     } else {
-      // Mover horizontalmente
-      for (Invader invader : invaders) {
-        if (invader.isActive()) {
-          invader.move();
+      for (int i = 0; i < invaders.size(); i++) {
+        if (!invaders.isActive(i)) continue;
+
+        if (shouldChangeDirection) {
+          invaders.translate(i, 0, DROP_DISTANCE);
+        } else {
+          invaderMovement.move(invaders, i, tick);
         }
+        formation.include(invaders.getX(i), invaders.getY(i), invaders.getWidth(i), invaders.getHeight(i));
       }
     }
 
     // Disparo de invasores
-    for (Invader invader : invaders) {
-      if (invader.isActive()) {
-        Bullet bullet = invader.tryShoot();
-        if (bullet != null) {
-          bullets.add(bullet);
-        }
-      }
-    }
+    fireScheduler.fire(random, bullets);
   }
 
   private void updateBullets() {
-    for (Bullet bullet : bullets) {
-      if (bullet.isActive()) {
-        bullet.move();
+    if (parallel != null && bullets.size() >= ParallelStep.MIN_ENTITIES) {
+      parallel.advance(bullets, tickScale, tick, 0, 1);
+    } else {
+      EntityFactory.BULLET_MOVEMENT.moveAll(bullets, tickScale, tick);
+    }
 
-        if (bullet.isOutOfBounds(SCREEN_HEIGHT)) {
-          bullet.destroy();
-        }
+    // A bullet leaving the screen this tick still gets its collision sweep;
+    // it is dropped once it starts a tick outside
+    for (int i = 0; i < bullets.size(); i++) {
+      int y = bullets.getY(i) - movedY(i);
+      if (bullets.isActive(i) && (y < 0 || y > screenHeight)) {
+        bullets.deactivate(i);
       }
     }
   }
 
   private void updatePowerUps() {
-    for (PowerUp powerUp : powerUps) {
-      if (powerUp.isActive()) {
-        powerUp.move();
+    EntityFactory.BULLET_MOVEMENT.moveAll(powerUps, tickScale, tick);
+
+    for (int i = 0; i < powerUps.size(); i++) {
+      if (powerUps.isActive(i) && powerUps.getY(i) > screenHeight) {
+        powerUps.deactivate(i);
+      }
+    }
+  }
 
-        if (powerUp.isOutOfBounds(SCREEN_HEIGHT)) {
-          powerUp.destroy();
+  void checkCollisions() {
+    switch (collisionMode) {
+      case SWEEP_AND_PRUNE -> checkCollisionsWithSweep();
+      case GRID -> checkCollisionsWithGrid();
+      default -> checkCollisionsBruteForce();
+    }
+  }
+
+  // Bullets are tested over the whole distance they moved this tick, and a
+  // bullet crossing several invaders hits the one it reaches first (lowest slot
+  // on a tie). Every mode follows that rule, so they all agree.
+  private void checkCollisionsBruteForce() {
+    for (int b = 0; b < bullets.size(); b++) {
+      if (!bullets.isActive(b)) continue;
+
+      if (bullets.getType(b) == PLAYER_BULLET) {
+        int hit = -1;
+        double first = EntityStore.NO_HIT;
+        for (int i = 0; i < invaders.size(); i++) {
+          if (invaders.isActive(i)) {
+            double t = sweep(b, invaders, i);
+            if (t < first) {
+              first = t;
+              hit = i;
+            }
+          }
+        }
+        if (hit >= 0) {
+          hitInvader(b, hit);
+        }
+      } else {
+        int target = firstPlayerHit(b);
+        if (target >= 0) {
+          hitPlayer(b, target);
         }
       }
     }
+
+    collectPowerUps();
   }
 
-  private void checkCollisions() {
-    for (Bullet bullet : bullets) {
-      if (!bullet.isActive()) continue;
+  private void checkCollisionsWithGrid() {
+    invaderGrid.clear();
+    for (int i = 0; i < invaders.size(); i++) {
+      if (invaders.isActive(i)) {
+        invaderGrid.insert(i, invaders.getX(i), invaders.getY(i),
+            invaders.getWidth(i), invaders.getHeight(i));
+      }
+    }
 
-      if (bullet.getType() == BulletType.PLAYER) {
-        for (Invader invader : invaders) {
-          if (invader.isActive() && bullet.collidesWith(invader)) {
-            bullet.destroy();
-            invader.destroy();
+    playerGrid.clear();
+    for (int i = 0; i < playerCount; i++) {
+      if (players.isActive(i)) {
+        playerGrid.insert(i, players.getX(i), players.getY(i), players.getWidth(i), players.getHeight(i));
+      }
+    }
 
-            if (random.nextDouble() < 0.1) {
-              spawnPowerUp(invader.getX(), invader.getY());
+    for (int b = 0; b < bullets.size(); b++) {
+      if (!bullets.isActive(b)) continue;
+
+      // Query the box covering the bullet's whole move this tick
+      int x = bullets.getX(b);
+      int dy = movedY(b);
+      int y = Math.min(bullets.getY(b), bullets.getY(b) - dy);
+      int width = bullets.getWidth(b);
+      int height = bullets.getHeight(b) + Math.abs(dy);
+
+      if (bullets.getType(b) == PLAYER_BULLET) {
+        int found = invaderGrid.query(x, y, width, height);
+        int hit = -1;
+        double first = EntityStore.NO_HIT;
+        for (int c = 0; c < found; c++) {
+          int i = invaderGrid.getCandidate(c);
+          if (invaders.isActive(i)) {
+            double t = sweep(b, invaders, i);
+            if (t < first) {
+              first = t;
+              hit = i;
             }
-            break;
           }
         }
+        if (hit >= 0) {
+          hitInvader(b, hit);
+        }
+      } else if (playerGrid.query(x, y, width, height) > 0) {
+        int target = firstPlayerHit(b);
+        if (target >= 0) {
+          hitPlayer(b, target);
+        }
+      }
+    }
+
+    for (int p = 0; p < powerUps.size(); p++) {
+      if (powerUps.isActive(p)
+          && playerGrid.query(powerUps.getX(p), powerUps.getY(p), powerUps.getWidth(p), powerUps.getHeight(p)) > 0) {
+        collectPowerUp(p);
+      }
+    }
+  }
+
+  private void checkCollisionsWithSweep() {
+    sweepAndPrune.sortTargets(invaders);
+    sweepAndPrune.clearSweepers();
+    for (int b = 0; b < bullets.size(); b++) {
+      if (bullets.isActive(b) && bullets.getType(b) == PLAYER_BULLET) {
+        sweepAndPrune.addSweeper(b, bullets.getX(b), bullets.getX(b) + bullets.getWidth(b));
+      }
+    }
+    sweepAndPrune.sweep();
+
+    // With a parallel pass every bullet's first hit is found up front against
+    // the invaders alive at the start of the pass
+    boolean precomputed = parallel != null && sweepAndPrune.getSweeperCount() >= ParallelStep.MIN_SWEEPERS;
+    if (precomputed) {
+      collisionTests += parallel.findFirstHits(sweepAndPrune, bullets, invaders, tickScale, tick);
+    }
+
+    // Resolved in slot order, like the other modes, so an invader hit by one
+    // bullet is no longer there for the next
+    for (int b = 0; b < bullets.size(); b++) {
+      if (!bullets.isActive(b)) continue;
+
+      if (bullets.getType(b) == PLAYER_BULLET) {
+        int hit = precomputed ? parallel.getFirstHit(b) : firstInvaderHit(b);
+        if (hit >= 0 && !invaders.isActive(hit)) {
+          // An earlier bullet took it; the next one along is still the first among the rest
+          hit = firstInvaderHit(b);
+        }
+        if (hit >= 0) {
+          hitInvader(b, hit);
+        }
       } else {
-        if (player.isActive() && bullet.collidesWith(player)) {
-          bullet.destroy();
-          player.takeDamage(bullet.getDamage());
+        int target = firstPlayerHit(b);
+        if (target >= 0) {
+          hitPlayer(b, target);
+        }
+      }
+    }
 
-          if (!player.isActive()) {
-            gameManager.loseLife();
-          }
+    collectPowerUps();
+  }
+
+  // The range is only pruned on x, so rows outside the swept y span are
+  // rejected before the sweep. ParallelStep runs the same scan per x region.
+  private int firstInvaderHit(int b) {
+    int dy = movedY(b);
+    int minY = Math.min(bullets.getY(b), bullets.getY(b) - dy);
+    int maxY = Math.max(bullets.getY(b), bullets.getY(b) - dy) + bullets.getHeight(b);
+    int hit = -1;
+    double first = EntityStore.NO_HIT;
+    for (int k = sweepAndPrune.getRangeStart(b); k < sweepAndPrune.getRangeEnd(b); k++) {
+      int i = sweepAndPrune.getTarget(k);
+      int y = invaders.getY(i);
+      if (y < maxY && y + invaders.getHeight(i) > minY && invaders.isActive(i)) {
+        double t = sweep(b, invaders, i);
+        if (t < first || (t == first && t != EntityStore.NO_HIT && i < hit)) {
+          first = t;
+          hit = i;
+        }
+      }
+    }
+    return hit;
+  }
+
+  private void collectPowerUps() {
+    for (int p = 0; p < powerUps.size(); p++) {
+      if (powerUps.isActive(p)) {
+        collectPowerUp(p);
+      }
+    }
+  }
+
+  private boolean overlaps(EntityStore<?> a, int slotA, EntityStore<?> b, int slotB) {
+    collisionTests++;
+    return a.overlaps(slotA, b.getX(slotB), b.getY(slotB), b.getWidth(slotB), b.getHeight(slotB));
+  }
+
+  // How far the bullet moved down this tick, see BulletMovement.moveAll
+  private int movedY(int bullet) {
+    return tickScale.step(bullets.getVelocityY(bullet), tick);
+  }
+
+  private double sweep(int bullet, EntityStore<?> targets, int slot) {
+    collisionTests++;
+    return bullets.sweep(bullet, 0, movedY(bullet),
+        targets.getX(slot), targets.getY(slot), targets.getWidth(slot), targets.getHeight(slot));
+  }
+
+  // The first live player (by slot) the bullet reaches, or -1
+  private int firstPlayerHit(int b) {
+    int hit = -1;
+    double first = EntityStore.NO_HIT;
+    for (int i = 0; i < playerCount; i++) {
+      if (players.isActive(i)) {
+        double t = sweep(b, players, i);
+        if (t < first) {
+          first = t;
+          hit = i;
         }
       }
     }
+    return hit;
+  }
 
-    for (PowerUp powerUp : powerUps) {
-      if (powerUp.isActive() && player.isActive() && powerUp.collidesWith(player)) {
-        powerUp.applyEffect(player);
+  // Goes to the first live player (by slot) touching it
+  private void collectPowerUp(int powerUp) {
+    for (int i = 0; i < playerCount; i++) {
+      if (players.isActive(i) && overlaps(powerUps, powerUp, players, i)) {
+        events.publish(GameEventType.POWER_UP_COLLECTED, powerUps.getType(powerUp), i);
+        powerUps.get(powerUp).applyEffect(players.get(i));
+        return;
       }
     }
   }
 
+  private void hitInvader(int bullet, int invader) {
+    bullets.deactivate(bullet);
+    invaders.deactivate(invader);
+    formation.onDestroyed(invaders.getX(invader), invaders.getY(invader),
+        invaders.getWidth(invader), invaders.getHeight(invader));
+    fireScheduler.onDestroyed(invaders.get(invader));
+    events.publish(GameEventType.INVADER_KILLED, invaders.getType(invader), levels.getPoints(invaders.getType(invader)));
+
+    if (random.nextDouble() < 0.1) {
+      spawnPowerUp(invaders.getX(invader), invaders.getY(invader));
+    }
+  }
+
+  private void hitPlayer(int bullet, int target) {
+    Player player = players.get(target);
+    bullets.deactivate(bullet);
+    int damage = bullets.get(bullet).getDamage();
+    player.takeDamage(damage);
+    events.publish(GameEventType.PLAYER_HIT, target << 1 | (player.isActive() ? 0 : 1), damage);
+  }
+
   private void spawnPowerUp(int x, int y) {
-    PowerUpType[] types = PowerUpType.values();
-    PowerUpType randomType = types[random.nextInt(types.length)];
-    powerUps.add(EntityFactory.createPowerUp(x, y, randomType));
+    PowerUpType randomType = POWER_UP_TYPES[random.nextInt(POWER_UP_TYPES.length)];
+    EntityFactory.createPowerUp(powerUps, x, y, randomType);
   }
 
-  private void cleanupDestroyedEntities() {
-    invaders.removeIf(invader -> !invader.isActive());
-    bullets.removeIf(bullet -> !bullet.isActive());
-    powerUps.removeIf(powerUp -> !powerUp.isActive());
+  void cleanupDestroyedEntities() {
+    invaders.compact();
+    bullets.compact();
+    powerUps.compact();
   }
 
   private void checkWinCondition() {
-    long activeInvaders = invaders.stream().filter(GameObject::isActive).count();
+    int activeInvaders = invaders.getLiveCount();
 
     if (activeInvaders == 0) {
-      gameManager.nextLevel();
+      events.publish(GameEventType.LEVEL_COMPLETE, 0, gameManager.getLevel());
+      gameManager.beginLevelTransition(tickScale.ticks(LEVEL_TRANSITION_BASE_TICKS));
+    }
+  }
+
+  // Swaps in the preloaded formation when its build is done, else builds it here
+  private void startNextLevel() {
+    int level = gameManager.getLevel();
+    LevelPreloader.Staged staged = preloader != null ? preloader.take(level) : null;
+    if (staged != null) {
+      preloader.recycle(invaders, fireScheduler);
+      invaders = staged.invaders;
+      fireScheduler = staged.fireScheduler;
+      beginFormation(levels.templateFor(level), level);
+    } else {
+      createInvaderFormation();
+    }
+    gameManager.beginLevel(invaders.getLiveCount());
+  }
 
-      try {
-        Thread.sleep(1500);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+  // Safe to call from any single producer thread, e.g. the EDT
+  public boolean submitInput(InputCommand command, boolean pressed) {
+    return submitInput(command, pressed, tick);
+  }
+
+  public boolean submitInput(InputCommand command, boolean pressed, long atTick) {
+    if (!inputQueue.offer(command, pressed, atTick)) {
+      LOGGER.log(Level.FINE, "Input queue full, dropped {0}", command);
+      return false;
+    }
+    return true;
+  }
+
+  private void processInput() {
+    int commands = pollCommands();
+    if (recorder != null) {
+      recorder.record(tick, commands);
+    }
+    applyCommands(commands);
+  }
+
+  // Drains every event stamped up to the current tick and returns the held
+  // commands as a bit set. A press and release between two ticks still counts
+  // once. update() does this itself; a networked client calls it instead of
+  // update() to send the commands to the server.
+  public int pollCommands() {
+    long entry;
+    while ((entry = inputQueue.peek()) != InputQueue.EMPTY && InputQueue.tickOf(entry) <= tick) {
+      int command = InputQueue.commandOf(entry);
+      boolean pressed = InputQueue.isPressed(entry);
+      heldCommands[command] = pressed;
+      tappedCommands[command] |= pressed;
+      inputQueue.poll();
+    }
+
+    int commands = 0;
+    for (int i = 0; i < INPUT_COMMANDS.length; i++) {
+      if (heldCommands[i] || tappedCommands[i]) {
+        commands |= 1 << i;
       }
+      tappedCommands[i] = false;
+    }
+    return commands;
+  }
 
-      createInvaderFormation();
+  // Applies a bit set of InputCommand ordinals, in ordinal order
+  public void applyCommands(int commands) {
+    applyCommands(0, commands);
+  }
 
-      for (Invader invader : invaders) {
-        if (invader.movementStrategy instanceof InvaderMovement) {
-          InvaderMovement movement = (InvaderMovement) invader.movementStrategy;
-          movement.setSpeed(Math.min(5, gameManager.getLevel()));
-        }
+  public void applyCommands(int playerIndex, int commands) {
+    for (int i = 0; i < INPUT_COMMANDS.length; i++) {
+      if ((commands & 1 << i) != 0) {
+        handleInput(playerIndex, INPUT_COMMANDS[i]);
       }
     }
   }
 
-  public void handleInput(String input) {
-    if (!gameManager.isGameRunning() || !player.isActive()) {
+  public void handleInput(InputCommand command) {
+    handleInput(0, command);
+  }
+
+  public void handleInput(int playerIndex, InputCommand command) {
+    if (command == InputCommand.RESTART) {
+      if (!gameManager.isGameRunning()) {
+        restart();
+      }
+      return;
+    }
+
+    Player player = players.get(playerIndex);
+    if (!gameManager.isGameRunning() || gameManager.isLevelTransition() || !player.isActive()) {
       return;
     }
 
     if (player.movementStrategy instanceof PlayerMovement) {
+      // Input is applied ahead of the tick it belongs to
       PlayerMovement movement = (PlayerMovement) player.movementStrategy;
 
-      switch (input.toLowerCase()) {
-        case "left":
-          movement.moveLeft(player);
+      switch (command) {
+        case LEFT:
+          movement.moveLeft(player, tickScale, tick + 1);
           break;
-        case "right":
-          movement.moveRight(player, SCREEN_WIDTH);
+        case RIGHT:
+          movement.moveRight(player, screenWidth, tickScale, tick + 1);
           break;
-        case "shoot":
-          Bullet bullet = player.shoot();
-          if (bullet != null) {
-            bullets.add(bullet);
-          }
+        case SHOOT:
+          player.shoot(clock.currentTimeMillis(), bullets);
           break;
       }
     }
   }
 
+  // Everything a tick depends on apart from input: held keys and queued events
+  // are not saved, and the formation bounds are rebuilt on the next tick.
+  public void writeState(ByteBuffer out) {
+    out.putLong(tick);
+    out.putLong(random.getState());
+    out.putInt(formationDirection.get());
+
+    out.putInt(gameManager.getScore());
+    out.putInt(gameManager.getLives());
+    out.put((byte) (gameManager.isGameRunning() ? 1 : 0));
+    out.putInt(gameManager.getLevel());
+    out.putInt(gameManager.getLevelTransitionTicks());
+
+    writeStore(out, players);
+    for (int i = 0; i < playerCount; i++) {
+      Player player = players.get(i);
+      out.putInt(player.getHealth());
+      out.putInt(player.getFireRate());
+      out.putLong(player.getLastShotTime());
+    }
+    writeStore(out, invaders);
+    writeStore(out, bullets);
+    writeStore(out, powerUps);
+    fireScheduler.write(out);
+  }
+
+  private static void writeStore(ByteBuffer out, EntityStore<?> store) {
+    out.putInt(store.size());
+    for (int i = 0; i < store.size(); i++) {
+      out.put((byte) (store.isActive(i) ? 1 : 0));
+      out.put((byte) store.getType(i));
+      out.putInt(store.getX(i));
+      out.putInt(store.getY(i));
+      out.putInt(store.getPrevX(i));
+      out.putInt(store.getPrevY(i));
+      out.putInt(store.getVelocityX(i));
+      out.putInt(store.getVelocityY(i));
+    }
+  }
+
+  public void readState(ByteBuffer in) {
+    tick = in.getLong();
+    clock.onTick(tick);
+    random.setState(in.getLong());
+    formationDirection.set(in.getInt());
+    Arrays.fill(heldCommands, false);
+    Arrays.fill(tappedCommands, false);
+    events.clear();
+
+    int score = in.getInt();
+    int lives = in.getInt();
+    boolean running = in.get() != 0;
+    int level = in.getInt();
+    gameManager.restore(score, lives, running, level, in.getInt());
+    invaderSpeed = levels.templateFor(level).speedFor(level);
+
+    players.clear();
+    invaders.clear();
+    bullets.clear();
+    powerUps.clear();
+
+    int count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      boolean active = in.get() != 0;
+      in.get();
+      EntityFactory.createPlayer(players, in.getInt(), in.getInt());
+      readSlot(in, players, i, active);
+    }
+    playerCount = count;
+    player = players.get(0);
+    for (int i = 0; i < count; i++) {
+      players.get(i).restore(in.getInt(), in.getInt(), in.getLong());
+    }
+
+    count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      boolean active = in.get() != 0;
+      InvaderType type = INVADER_TYPES[in.get()];
+      EntityFactory.createInvader(invaders, in.getInt(), in.getInt(), type, invaderMovement);
+      readSlot(in, invaders, i, active);
+    }
+
+    count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      boolean active = in.get() != 0;
+      int type = in.get();
+      int x = in.getInt();
+      int y = in.getInt();
+      if (type == PLAYER_BULLET) {
+        EntityFactory.createPlayerBullet(bullets, x, y);
+      } else {
+        EntityFactory.createInvaderBullet(bullets, x, y);
+      }
+      readSlot(in, bullets, i, active);
+    }
+
+    count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      boolean active = in.get() != 0;
+      PowerUpType type = POWER_UP_TYPES[in.get()];
+      EntityFactory.createPowerUp(powerUps, in.getInt(), in.getInt(), type);
+      readSlot(in, powerUps, i, active);
+    }
+
+    fireScheduler.read(in, invaders);
+    formation.invalidate();
+    if (preloader != null) {
+      preloader.request(levels.templateFor(level + 1), level + 1);
+    }
+  }
+
+  private static void readSlot(ByteBuffer in, EntityStore<?> store, int slot, boolean active) {
+    store.setPrevious(slot, in.getInt(), in.getInt());
+    store.get(slot).setVelocity(in.getInt(), in.getInt());
+    if (!active) {
+      store.deactivate(slot);
+    }
+  }
+
   public Player getPlayer() { return player; }
-  public List<Invader> getInvaders() { return invaders; }
-  public List<Bullet> getBullets() { return bullets; }
-  public List<PowerUp> getPowerUps() { return powerUps; }
+  public EntityStore<Player> getPlayers() { return players; }
+  public int getPlayerCount() { return playerCount; }
+  public EntityStore<Invader> getInvaders() { return invaders; }
+  public EntityStore<Bullet> getBullets() { return bullets; }
+  public EntityStore<PowerUp> getPowerUps() { return powerUps; }
+  public EntityPool<Bullet> getBulletPool() { return bulletPool; }
+  public EntityPool<PowerUp> getPowerUpPool() { return powerUpPool; }
+  public EntityPool<Invader> getInvaderPool() { return invaders.getPool(); }
+  public LevelSet getLevels() { return levels; }
+  public Formation getFormation() { return formation; }
+  public long getTick() { return tick; }
+  public long getSeed() { return seed; }
+  public ReplayRecorder getRecorder() { return recorder; }
+  public void setRecorder(ReplayRecorder recorder) { this.recorder = recorder; }
+  public SnapshotWriter getSnapshotWriter() { return snapshotWriter; }
+  public void setSnapshotWriter(SnapshotWriter snapshotWriter) { this.snapshotWriter = snapshotWriter; }
+  public GameMetrics getMetrics() { return metrics; }
+  public GameEvents getEvents() { return events; }
+
+  // Metrics also count the tick's events, so they follow the attachment
+  public void setMetrics(GameMetrics metrics) {
+    if (this.metrics != null) {
+      events.unsubscribe(this.metrics);
+    }
+    this.metrics = metrics;
+    if (metrics != null) {
+      events.subscribe(metrics);
+    }
+  }
+  public long getCollisionTests() { return collisionTests; }
   public GameManager getGameManager() { return gameManager; }
+  public TickScale getTickScale() { return tickScale; }
+  public int getScreenWidth() { return screenWidth; }
+  public int getScreenHeight() { return screenHeight; }
+  public ForkJoinPool getParallelPool() { return parallel != null ? parallel.getPool() : null; }
+  public void setParallelPool(ForkJoinPool pool) { this.parallel = pool != null ? new ParallelStep(pool) : null; }
+  public boolean isPreloading() { return preloader != null; }
+
+  // Builds each next level on the executor while the current one is played;
+  // null builds it on the loop thread at the transition. Either way the
+  // formation is the same, so replays and snapshots are unaffected.
+  public void setPreloadExecutor(Executor executor) {
+    if (executor == null) {
+      preloader = null;
+      return;
+    }
+    double[] shootChances = new double[INVADER_TYPES.length];
+    for (int type = 0; type < shootChances.length; type++) {
+      shootChances[type] = tickScale.chance(levels.getShootChance(type));
+    }
+    preloader = new LevelPreloader(executor, this::newInvaderView, INVADER_POOL_CAPACITY, shootChances);
+    int level = gameManager.getLevel();
+    preloader.request(levels.templateFor(level + 1), level + 1);
+  }
+
+  public CollisionMode getCollisionMode() { return collisionMode; }
+  public void setCollisionMode(CollisionMode collisionMode) { this.collisionMode = collisionMode; }
 }
\ No newline at end of file
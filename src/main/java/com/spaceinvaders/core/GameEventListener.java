@@ -0,0 +1,9 @@
+package com.spaceinvaders.core;
+
+// Receives every event of a tick in publication order, then one endBatch
+public interface GameEventListener {
+  void onEvent(long event);
+
+  default void endBatch() {
+  }
+}
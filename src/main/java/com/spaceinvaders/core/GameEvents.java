@@ -0,0 +1,106 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.enums.GameEventType;
+import java.util.Arrays;
+
+// Game-state changes raised during a tick, packed into longs the same way as
+// InputQueue: value << 32 | detail << 8 | type. Entities and the collision
+// pass only publish; the engine drains the ring once at the end of the tick
+// and each listener applies the whole batch. Both ends run on the engine's
+// thread. The ring doubles if a tick ever outgrows it, so steady-state ticks
+// allocate nothing.
+//
+//   INVADER_KILLED      detail = invader type                value = points
+//   PLAYER_HIT          detail = player << 1 | 1 if fatal    value = damage
+//   POWER_UP_COLLECTED  detail = power-up type               value = player
+//   LEVEL_COMPLETE                                           value = level cleared
+public class GameEvents {
+  private static final GameEventType[] TYPES = GameEventType.values();
+  private static final int TYPE_MASK = 0xFF;
+  private static final int DETAIL_MASK = 0xFFFFFF;
+
+  private long[] buffer;
+  private int mask;
+  private long head;
+  private long tail;
+  private GameEventListener[] listeners = new GameEventListener[0];
+
+  public GameEvents(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+    }
+    this.buffer = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  public void publish(GameEventType type, int detail, int value) {
+    if (tail - head == buffer.length) {
+      grow();
+    }
+    buffer[(int) tail & mask] = (long) value << 32 | (long) (detail & DETAIL_MASK) << 8 | type.ordinal();
+    tail++;
+  }
+
+  private void grow() {
+    long[] grown = new long[buffer.length * 2];
+    int count = (int) (tail - head);
+    for (int i = 0; i < count; i++) {
+      grown[i] = buffer[(int) (head + i) & mask];
+    }
+    buffer = grown;
+    mask = grown.length - 1;
+    head = 0;
+    tail = count;
+  }
+
+  // Hands each listener the whole batch, in subscription order
+  public void drain() {
+    if (head == tail) {
+      return;
+    }
+    GameEventListener[] targets = listeners;
+    for (GameEventListener listener : targets) {
+      for (long i = head; i < tail; i++) {
+        listener.onEvent(buffer[(int) i & mask]);
+      }
+      listener.endBatch();
+    }
+    head = tail;
+  }
+
+  // Drops anything pending, e.g. when the engine state is replaced
+  public void clear() {
+    head = tail;
+  }
+
+  public void subscribe(GameEventListener listener) {
+    listeners = Arrays.copyOf(listeners, listeners.length + 1);
+    listeners[listeners.length - 1] = listener;
+  }
+
+  public void unsubscribe(GameEventListener listener) {
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i] == listener) {
+        GameEventListener[] remaining = new GameEventListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, remaining, 0, i);
+        System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+        listeners = remaining;
+        return;
+      }
+    }
+  }
+
+  public int size() { return (int) (tail - head); }
+
+  public static GameEventType typeOf(long event) {
+    return TYPES[(int) event & TYPE_MASK];
+  }
+
+  public static int detailOf(long event) {
+    return (int) (event >>> 8) & DETAIL_MASK;
+  }
+
+  public static int valueOf(long event) {
+    return (int) (event >>> 32);
+  }
+}
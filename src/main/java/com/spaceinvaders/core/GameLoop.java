@@ -0,0 +1,112 @@
+package com.spaceinvaders.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class GameLoop implements Runnable {
+  public static final int DEFAULT_TICK_RATE = 60;
+  private static final int MAX_CATCH_UP_TICKS = 5;
+  private static final long MAX_FRAME_NANOS = 250_000_000L;
+  private static final long SPIN_NANOS = 200_000L;
+
+  private final Runnable tick;
+  private final Runnable renderRequest;
+  private final long tickNanos;
+  private final long frameNanos;
+
+  private volatile boolean running;
+  private volatile double interpolationAlpha;
+  private Thread thread;
+
+  public GameLoop(GameEngine gameEngine, int ticksPerSecond, int framesPerSecond,
+                  Runnable renderRequest) {
+    this(() -> {
+      synchronized (gameEngine) {
+        gameEngine.capturePreviousPositions();
+        gameEngine.update();
+      }
+    }, ticksPerSecond, framesPerSecond, renderRequest);
+  }
+
+  // Runs any fixed-rate tick, e.g. a networked client's; the tick does its own locking
+  public GameLoop(Runnable tick, int ticksPerSecond, int framesPerSecond, Runnable renderRequest) {
+    this.tick = tick;
+    this.renderRequest = renderRequest;
+    this.tickNanos = 1_000_000_000L / ticksPerSecond;
+    this.frameNanos = 1_000_000_000L / framesPerSecond;
+  }
+
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this, "game-loop");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public synchronized void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+      thread = null;
+    }
+  }
+
+  @Override
+  public void run() {
+    long previous = System.nanoTime();
+    long nextFrame = previous;
+    long accumulator = 0;
+
+    while (running) {
+      long now = System.nanoTime();
+      accumulator += Math.min(now - previous, MAX_FRAME_NANOS);
+      previous = now;
+
+      int ticks = 0;
+      while (accumulator >= tickNanos && ticks < MAX_CATCH_UP_TICKS) {
+        tick.run();
+        accumulator -= tickNanos;
+        ticks++;
+      }
+
+      // Too far behind to catch up: drop the backlog instead of spiralling
+      if (accumulator >= tickNanos) {
+        accumulator %= tickNanos;
+      }
+
+      interpolationAlpha = (double) accumulator / tickNanos;
+
+      // Frames stay on a fixed cadence; only resync after falling a whole frame behind
+      if (now >= nextFrame) {
+        renderRequest.run();
+        nextFrame += frameNanos;
+        if (nextFrame <= now) {
+          nextFrame = now + frameNanos;
+        }
+      }
+
+      waitUntil(Math.min(now + tickNanos - accumulator, nextFrame));
+    }
+  }
+
+  // Parks for most of the wait and spins for the last moment to hit the deadline precisely
+  private void waitUntil(long deadline) {
+    long remaining;
+    while (running && (remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+      LockSupport.parkNanos(remaining - SPIN_NANOS);
+    }
+    while (running && deadline - System.nanoTime() > 0) {
+      Thread.onSpinWait();
+    }
+  }
+
+  public double getInterpolationAlpha() {
+    return interpolationAlpha;
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+}
@@ -1,25 +1,31 @@
 package com.spaceinvaders.core;
 
+import com.spaceinvaders.enums.PowerUpType;
+import com.spaceinvaders.jfr.LevelCompleteEvent;
+import com.spaceinvaders.jfr.LevelStartEvent;
 
-public class GameManager {
-  private static GameManager instance;
+public class GameManager implements GameEventListener {
   private int score;
   private int lives;
   private boolean gameRunning;
   private int level;
+  private int levelTransitionTicks;
+  private LevelCompleteEvent levelEvent;
 
-  private GameManager() {
+  public GameManager() {
     score = 0;
     lives = 3;
     gameRunning = false;
     level = 1;
   }
 
+  // Shared instance for the interactive game only; every other engine gets its own
   public static GameManager getInstance() {
-    if (instance == null) {
-      instance = new GameManager();
-    }
-    return instance;
+    return Holder.INSTANCE;
+  }
+
+  private static class Holder {
+    static final GameManager INSTANCE = new GameManager();
   }
 
   public void startGame() {
@@ -27,6 +33,7 @@ public class GameManager {
     score = 0;
     lives = 3;
     level = 1;
+    levelTransitionTicks = 0;
   }
 
   public void endGame() {
@@ -37,6 +44,10 @@ public class GameManager {
     score += points;
   }
 
+  public void addLife() {
+    lives++;
+  }
+
   public void loseLife() {
     lives--;
     if (lives <= 0) {
@@ -44,10 +55,76 @@ public class GameManager {
     }
   }
 
+  // Opens the JFR level span; the engine calls it once the formation is built
+  public void beginLevel(int invaders) {
+    LevelStartEvent event = new LevelStartEvent();
+    if (event.isEnabled()) {
+      event.level = level;
+      event.invaders = invaders;
+      event.score = score;
+      event.lives = lives;
+      event.commit();
+    }
+    levelEvent = new LevelCompleteEvent();
+    levelEvent.begin();
+  }
+
   public void nextLevel() {
+    LevelCompleteEvent event = levelEvent != null ? levelEvent : new LevelCompleteEvent();
+    levelEvent = null;
+    event.end();
+    if (event.shouldCommit()) {
+      event.level = level;
+      event.score = score;
+      event.lives = lives;
+      event.commit();
+    }
     level++;
   }
 
+  public void beginLevelTransition(int ticks) {
+    levelTransitionTicks = ticks;
+  }
+
+  public boolean advanceLevelTransition() {
+    if (levelTransitionTicks > 0) {
+      levelTransitionTicks--;
+    }
+    return levelTransitionTicks == 0;
+  }
+
+  // Score, lives and level change here, in one pass over the tick's events
+  @Override
+  public void onEvent(long event) {
+    switch (GameEvents.typeOf(event)) {
+      case INVADER_KILLED -> score += GameEvents.valueOf(event);
+      case PLAYER_HIT -> {
+        if ((GameEvents.detailOf(event) & 1) != 0) {
+          loseLife();
+        }
+      }
+      case POWER_UP_COLLECTED -> {
+        if (GameEvents.detailOf(event) == PowerUpType.EXTRA_LIFE.ordinal()) {
+          addLife();
+        }
+      }
+      case LEVEL_COMPLETE -> nextLevel();
+    }
+  }
+
+  // Used when loading a snapshot
+  public void restore(int score, int lives, boolean gameRunning, int level, int levelTransitionTicks) {
+    this.score = score;
+    this.lives = lives;
+    this.gameRunning = gameRunning;
+    this.level = level;
+    this.levelTransitionTicks = levelTransitionTicks;
+  }
+
+  public boolean isLevelTransition() {
+    return levelTransitionTicks > 0;
+  }
+
   public int getScore() {
     return score;
   }
@@ -63,4 +140,8 @@ public class GameManager {
   public int getLevel() {
     return level;
   }
+
+  public int getLevelTransitionTicks() {
+    return levelTransitionTicks;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.spaceinvaders.core;
+
+// SplitMix64, the same sequence SplittableRandom produces for a seed, but with
+// its single word of state exposed so snapshots can save and restore it
+public class GameRandom {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  private long state;
+
+  public GameRandom(long seed) {
+    this.state = seed;
+  }
+
+  public long nextLong() {
+    long z = state += GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  public int nextInt() {
+    long z = state += GOLDEN_GAMMA;
+    z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+    return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+  }
+
+  // Rejection sampling, so every value in [0, bound) is equally likely
+  public int nextInt(int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("bound must be positive: " + bound);
+    }
+    int r = nextInt();
+    int m = bound - 1;
+    if ((bound & m) == 0) {
+      return r & m;
+    }
+    for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+    }
+    return r;
+  }
+
+  public double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+
+  public long getState() { return state; }
+  public void setState(long state) { this.state = state; }
+}
@@ -0,0 +1,143 @@
+package com.spaceinvaders.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// One game hosted by a SessionManager: its own engine, GameManager and tick
+// clock, so sessions share no state. A run is one dispatch from the manager's
+// wheel and plays the ticks that came due since the last one, within the
+// session's budget. Input can come from any thread; anything else that touches
+// the engine must hold its lock, as the ticks do.
+public class GameSession implements Runnable {
+  static final int SCHEDULED = 0;
+  static final int PARKED = 1;
+  static final int CLOSED = 2;
+
+  private final long id;
+  private final GameEngine engine;
+  private final SessionManager manager;
+  private final long periodNanos;
+  private final AtomicIntegerArray commands = new AtomicIntegerArray(GameEngine.MAX_PLAYERS);
+  private final AtomicInteger state = new AtomicInteger(SCHEDULED);
+  private volatile long lastInputNanos;
+  private volatile long budgetNanos;
+
+  // Set by whoever schedules the session, read by the wheel and the run
+  long deadline;
+  // Owned by the wheel thread
+  GameSession pendingNext;
+  GameSession bucketNext;
+  long rounds;
+
+  private volatile long ticks;
+  private volatile long droppedTicks;
+  private volatile long overruns;
+
+  GameSession(long id, long seed, SessionManager manager, int ticksPerSecond, long budgetNanos) {
+    this.id = id;
+    this.manager = manager;
+    this.periodNanos = 1_000_000_000L / ticksPerSecond;
+    this.budgetNanos = budgetNanos;
+    this.engine = new GameEngine(new GameManager(), new TickClock(ticksPerSecond), seed,
+        GameEngine.SCREEN_WIDTH, GameEngine.SCREEN_HEIGHT);
+    this.engine.setPreloadExecutor(manager.getPool());
+    this.lastInputNanos = System.nanoTime();
+  }
+
+  // Holds a bit set of InputCommand ordinals for the player until the next
+  // call. Wakes a parked session.
+  public void setCommands(int player, int commands) {
+    this.commands.set(player, commands);
+    lastInputNanos = System.nanoTime();
+    if (state.compareAndSet(PARKED, SCHEDULED)) {
+      manager.schedule(this, System.nanoTime());
+    }
+  }
+
+  // Up to GameEngine.MAX_PLAYERS
+  public int addPlayer() {
+    synchronized (engine) {
+      return engine.addPlayer();
+    }
+  }
+
+  // Plays every tick owed since the deadline, unless the host is overloaded,
+  // in which case only one is played and the rest are dropped. Stops early
+  // once the budget is spent, and a session that overran starts its next
+  // period that much later, so an expensive game slows itself down rather
+  // than the sessions sharing its worker.
+  @Override
+  public void run() {
+    if (state.get() == CLOSED) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    manager.recordLateness(start - deadline);
+    long owed = Math.max(1, (start - deadline) / periodNanos + 1);
+    long due = manager.isOverloaded() ? 1 : Math.min(owed, SessionManager.MAX_CATCH_UP_TICKS);
+    long played = 0;
+    long elapsed = 0;
+    synchronized (engine) {
+      int players = engine.getPlayerCount();
+      while (played < due) {
+        for (int p = 0; p < players; p++) {
+          engine.applyCommands(p, commands.get(p));
+        }
+        engine.update();
+        played++;
+        elapsed = System.nanoTime() - start;
+        if (elapsed > budgetNanos) break;
+      }
+    }
+
+    ticks += played;
+    droppedTicks += owed - played;
+    manager.recordTicks(played, owed - played);
+    long next = deadline + owed * periodNanos;
+    if (elapsed > budgetNanos) {
+      overruns++;
+      next += elapsed - budgetNanos;
+    }
+    deadline = next;
+
+    if (shouldPark(start)) {
+      park(start);
+    } else {
+      manager.schedule(this, next);
+    }
+  }
+
+  // Nothing changes in a finished game until someone restarts it, and an
+  // idle one is paused until its players come back
+  private boolean shouldPark(long now) {
+    synchronized (engine) {
+      if (!engine.getGameManager().isGameRunning()) return true;
+    }
+    return now - lastInputNanos > manager.getIdleNanos();
+  }
+
+  // Input that arrived during the run would otherwise be missed, since its
+  // wake-up saw the session still scheduled
+  private void park(long start) {
+    if (state.compareAndSet(SCHEDULED, PARKED) && lastInputNanos > start
+        && state.compareAndSet(PARKED, SCHEDULED)) {
+      manager.schedule(this, System.nanoTime());
+    }
+  }
+
+  void close() {
+    state.set(CLOSED);
+  }
+
+  int getState() { return state.get(); }
+  public long getId() { return id; }
+  public GameEngine getEngine() { return engine; }
+  public boolean isParked() { return state.get() == PARKED; }
+  public boolean isClosed() { return state.get() == CLOSED; }
+  public long getTicks() { return ticks; }
+  public long getDroppedTicks() { return droppedTicks; }
+  public long getOverruns() { return overruns; }
+  public long getBudgetNanos() { return budgetNanos; }
+  public void setBudgetNanos(long budgetNanos) { this.budgetNanos = budgetNanos; }
+}
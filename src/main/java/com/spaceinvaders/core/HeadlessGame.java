@@ -0,0 +1,66 @@
+package com.spaceinvaders.core;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class HeadlessGame {
+  private final GameEngine gameEngine;
+  private long ticks;
+
+  public HeadlessGame(long seed, int screenWidth, int screenHeight) {
+    this(seed, screenWidth, screenHeight, GameLoop.DEFAULT_TICK_RATE);
+  }
+
+  public HeadlessGame(long seed, int screenWidth, int screenHeight, int ticksPerSecond) {
+    this.gameEngine = new GameEngine(new GameManager(), new TickClock(ticksPerSecond), seed,
+        screenWidth, screenHeight);
+  }
+
+  // Builds a field large enough to hold the given number of invaders on the usual 60x40 spacing
+  public static HeadlessGame withFormation(long seed, int invaderCount) {
+    int cols = Math.max(10, (int) Math.ceil(Math.sqrt(invaderCount * 2.0)));
+    int rows = (invaderCount + cols - 1) / cols;
+    HeadlessGame game = new HeadlessGame(seed, 100 + cols * 60, 300 + rows * 40);
+    game.gameEngine.getInvaders().clear();
+    game.gameEngine.createInvaderFormation(invaderCount, cols);
+    return game;
+  }
+
+  public void tick() {
+    ticks++;
+    gameEngine.update();
+  }
+
+  public void run(int tickCount) {
+    for (int i = 0; i < tickCount; i++) {
+      tick();
+    }
+  }
+
+  public GameEngine getEngine() { return gameEngine; }
+  public long getTicks() { return ticks; }
+
+  // Usage: HeadlessGame [ticks] [seed] [invaders] [parallelism]; a parallelism
+  // above 1 runs the per-entity loops on a fork-join pool of that size
+  public static void main(String[] args) {
+    int tickCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : 0L;
+    int invaderCount = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+    HeadlessGame game = invaderCount > 0
+        ? withFormation(seed, invaderCount)
+        : new HeadlessGame(seed, GameEngine.SCREEN_WIDTH, GameEngine.SCREEN_HEIGHT);
+    if (parallelism > 1) {
+      game.getEngine().setParallelPool(new ForkJoinPool(parallelism));
+    }
+    long start = System.nanoTime();
+    game.run(tickCount);
+    long elapsed = System.nanoTime() - start;
+
+    GameManager gm = game.getEngine().getGameManager();
+    System.out.println("Ticks: " + tickCount + " in " + (elapsed / 1_000_000) + " ms");
+    System.out.println("Score: " + gm.getScore() + ", Lives: " + gm.getLives() + ", Level: " + gm.getLevel());
+    System.out.println("Bullet pool: " + game.getEngine().getBulletPool());
+    System.out.println("Power-up pool: " + game.getEngine().getPowerUpPool());
+  }
+}
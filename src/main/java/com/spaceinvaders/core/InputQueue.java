@@ -0,0 +1,67 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.enums.InputCommand;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-producer/single-consumer ring of input events packed into longs:
+// tick << 8 | pressed << 7 | command. The producer (the EDT) only moves tail,
+// the consumer (the game loop) only moves head, so no locks are needed.
+public class InputQueue {
+  public static final long EMPTY = -1L;
+  private static final int PRESSED_BIT = 1 << 7;
+  private static final int COMMAND_MASK = PRESSED_BIT - 1;
+
+  private final long[] buffer;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+  private long cachedHead;
+
+  public InputQueue(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+    }
+    this.buffer = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  // Producer side. Returns false if the consumer has fallen a whole buffer behind.
+  public boolean offer(InputCommand command, boolean pressed, long tick) {
+    long t = tail.get();
+    if (t - cachedHead == buffer.length) {
+      cachedHead = head.get();
+      if (t - cachedHead == buffer.length) {
+        return false;
+      }
+    }
+    buffer[(int) t & mask] = tick << 8 | (pressed ? PRESSED_BIT : 0) | command.ordinal();
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  // Consumer side
+  public long peek() {
+    long h = head.get();
+    return h == tail.get() ? EMPTY : buffer[(int) h & mask];
+  }
+
+  public void poll() {
+    head.lazySet(head.get() + 1);
+  }
+
+  public boolean isEmpty() {
+    return head.get() == tail.get();
+  }
+
+  public static long tickOf(long entry) {
+    return entry >>> 8;
+  }
+
+  public static boolean isPressed(long entry) {
+    return (entry & PRESSED_BIT) != 0;
+  }
+
+  public static int commandOf(long entry) {
+    return (int) entry & COMMAND_MASK;
+  }
+}
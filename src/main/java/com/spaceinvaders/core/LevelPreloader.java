@@ -0,0 +1,93 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Invader;
+import com.spaceinvaders.factory.EntityPool;
+import com.spaceinvaders.level.LevelTemplate;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Builds the next level's invader store and fire columns on a background
+// executor while the current level is played, so the transition tick only
+// swaps references. There are two sets, the engine's and a spare, and the
+// spare belongs to whoever holds it: the loop thread, or the build task until
+// it publishes the result. The hand-over is one atomic exchange each way,
+// and a build for a level that is no longer next is kept as the spare. The
+// result is the same as GameEngine.loadFormation building it in place.
+final class LevelPreloader {
+  private final Executor executor;
+  private final AtomicReference<Staged> ready = new AtomicReference<>();
+  // Owned by the loop thread while not null
+  private Staged spare;
+
+  LevelPreloader(Executor executor, Supplier<Invader> views, int poolCapacity, double[] shootChances) {
+    this.executor = executor;
+    EntityStore<Invader> invaders = new EntityStore<>();
+    invaders.setPool(new EntityPool<>(views, poolCapacity));
+    FireScheduler fireScheduler = new FireScheduler();
+    for (int type = 0; type < shootChances.length; type++) {
+      fireScheduler.setShootChance(type, shootChances[type]);
+    }
+    this.spare = new Staged(invaders, fireScheduler);
+  }
+
+  // Starts building the level unless the spare is still out on an older build;
+  // take() then finds the wrong level and the transition builds in place
+  void request(LevelTemplate template, int level) {
+    Staged staged = spare != null ? spare : ready.getAndSet(null);
+    if (staged == null) {
+      return;
+    }
+    spare = null;
+    staged.level = level;
+    try {
+      executor.execute(() -> {
+        // Filled up front so the build takes every view from the pool
+        staged.invaders.getPool().prefill(template.getCount());
+        fill(template, level, staged.invaders, staged.fireScheduler);
+        ready.set(staged);
+      });
+    } catch (RejectedExecutionException e) {
+      spare = staged;
+    }
+  }
+
+  // The staged set for the level if its build has finished, else null
+  Staged take(int level) {
+    Staged staged = ready.getAndSet(null);
+    if (staged == null) {
+      return null;
+    }
+    if (staged.level != level) {
+      spare = staged;
+      return null;
+    }
+    return staged;
+  }
+
+  // The set the engine just swapped out; its next build clears it
+  void recycle(EntityStore<Invader> invaders, FireScheduler fireScheduler) {
+    spare = new Staged(invaders, fireScheduler);
+  }
+
+  static void fill(LevelTemplate template, int level, EntityStore<Invader> invaders, FireScheduler fireScheduler) {
+    template.spawn(invaders, level);
+    fireScheduler.reset(template.getColumns());
+    for (int i = 0; i < template.getCount(); i++) {
+      fireScheduler.add(invaders.get(i), template.getColumn(i));
+    }
+  }
+
+  static final class Staged {
+    final EntityStore<Invader> invaders;
+    final FireScheduler fireScheduler;
+    int level;
+
+    Staged(EntityStore<Invader> invaders, FireScheduler fireScheduler) {
+      this.invaders = invaders;
+      this.fireScheduler = fireScheduler;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.strategy.InvaderMovement;
+import com.spaceinvaders.strategy.TickScale;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Fork-join versions of the per-entity loops in GameEngine. Every task writes
+// only the slots in its own range, or the per-bullet result for the bullets in
+// its own x region. Anything with side effects (deactivation, score, the
+// random stream, power-up spawns) stays in the engine's single-threaded pass
+// that consumes these results in slot order, so a tick ends up bit-identical
+// to the sequential one.
+class ParallelStep {
+  // Below these sizes forking costs more than it saves and the engine keeps
+  // to its sequential loops
+  static final int MIN_ENTITIES = 4096;
+  static final int MIN_SWEEPERS = 256;
+  private static final int ENTITIES_PER_LEAF = 2048;
+  private static final int SWEEPERS_PER_LEAF = 64;
+
+  private final ForkJoinPool pool;
+  private int[] firstHits = new int[64];
+
+  ParallelStep(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  // Moves (or drops) the live invaders and returns the bounds they end up in
+  Formation moveInvaders(EntityStore<?> invaders, InvaderMovement movement, long tick, int drop) {
+    return pool.invoke(new MoveInvaders(invaders, movement, tick, drop, 0, invaders.size()));
+  }
+
+  void advance(EntityStore<?> store, TickScale tickScale, long tick, int scaleX, int scaleY) {
+    pool.invoke(new Advance(store, tickScale, tick, scaleX, scaleY, 0, store.size()));
+  }
+
+  // Finds each swept bullet's first hit among the invaders live right now and
+  // returns the number of narrow tests. Same scan as GameEngine.firstInvaderHit.
+  long findFirstHits(SweepAndPrune sweepAndPrune, EntityStore<?> bullets, EntityStore<?> invaders,
+                     TickScale tickScale, long tick) {
+    if (firstHits.length < bullets.size()) {
+      firstHits = new int[Math.max(bullets.size(), firstHits.length * 2)];
+    }
+    Arrays.fill(firstHits, 0, bullets.size(), -1);
+    return pool.invoke(new FindFirstHits(sweepAndPrune, bullets, invaders, tickScale, tick, 0,
+        sweepAndPrune.getSweeperCount()));
+  }
+
+  int getFirstHit(int bullet) { return firstHits[bullet]; }
+  ForkJoinPool getPool() { return pool; }
+
+  private static class MoveInvaders extends RecursiveTask<Formation> {
+    private final EntityStore<?> invaders;
+    private final InvaderMovement movement;
+    private final long tick;
+    private final int drop;
+    private final int from;
+    private final int to;
+
+    MoveInvaders(EntityStore<?> invaders, InvaderMovement movement, long tick, int drop, int from, int to) {
+      this.invaders = invaders;
+      this.movement = movement;
+      this.tick = tick;
+      this.drop = drop;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Formation compute() {
+      if (to - from > ENTITIES_PER_LEAF) {
+        int middle = (from + to) >>> 1;
+        MoveInvaders left = new MoveInvaders(invaders, movement, tick, drop, from, middle);
+        left.fork();
+        Formation right = new MoveInvaders(invaders, movement, tick, drop, middle, to).compute();
+        Formation bounds = left.join();
+        bounds.merge(right);
+        return bounds;
+      }
+
+      Formation bounds = new Formation();
+      bounds.beginSweep();
+      for (int i = from; i < to; i++) {
+        if (!invaders.isActive(i)) continue;
+
+        if (drop != 0) {
+          invaders.translate(i, 0, drop);
+        } else {
+          movement.move(invaders, i, tick);
+        }
+        bounds.include(invaders.getX(i), invaders.getY(i), invaders.getWidth(i), invaders.getHeight(i));
+      }
+      return bounds;
+    }
+  }
+
+  private static class Advance extends RecursiveAction {
+    private final EntityStore<?> store;
+    private final TickScale tickScale;
+    private final long tick;
+    private final int scaleX;
+    private final int scaleY;
+    private final int from;
+    private final int to;
+
+    Advance(EntityStore<?> store, TickScale tickScale, long tick, int scaleX, int scaleY, int from, int to) {
+      this.store = store;
+      this.tickScale = tickScale;
+      this.tick = tick;
+      this.scaleX = scaleX;
+      this.scaleY = scaleY;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > ENTITIES_PER_LEAF) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Advance(store, tickScale, tick, scaleX, scaleY, from, middle),
+            new Advance(store, tickScale, tick, scaleX, scaleY, middle, to));
+        return;
+      }
+      store.advanceActive(tickScale, tick, scaleX, scaleY, from, to);
+    }
+  }
+
+  // Splits the x-sorted sweepers into contiguous runs, i.e. vertical strips of
+  // the field, and writes one result per bullet
+  private class FindFirstHits extends RecursiveTask<Long> {
+    private final SweepAndPrune sweepAndPrune;
+    private final EntityStore<?> bullets;
+    private final EntityStore<?> invaders;
+    private final TickScale tickScale;
+    private final long tick;
+    private final int from;
+    private final int to;
+
+    FindFirstHits(SweepAndPrune sweepAndPrune, EntityStore<?> bullets, EntityStore<?> invaders,
+                  TickScale tickScale, long tick, int from, int to) {
+      this.sweepAndPrune = sweepAndPrune;
+      this.bullets = bullets;
+      this.invaders = invaders;
+      this.tickScale = tickScale;
+      this.tick = tick;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Long compute() {
+      if (to - from > SWEEPERS_PER_LEAF) {
+        int middle = (from + to) >>> 1;
+        FindFirstHits left = new FindFirstHits(sweepAndPrune, bullets, invaders, tickScale, tick, from, middle);
+        left.fork();
+        long right = new FindFirstHits(sweepAndPrune, bullets, invaders, tickScale, tick, middle, to).compute();
+        return left.join() + right;
+      }
+
+      long tests = 0;
+      for (int s = from; s < to; s++) {
+        int b = sweepAndPrune.getSweeper(s);
+        int dy = tickScale.step(bullets.getVelocityY(b), tick);
+        int minY = Math.min(bullets.getY(b), bullets.getY(b) - dy);
+        int maxY = Math.max(bullets.getY(b), bullets.getY(b) - dy) + bullets.getHeight(b);
+        int hit = -1;
+        double first = EntityStore.NO_HIT;
+        for (int k = sweepAndPrune.getRangeStart(b); k < sweepAndPrune.getRangeEnd(b); k++) {
+          int i = sweepAndPrune.getTarget(k);
+          int y = invaders.getY(i);
+          if (y < maxY && y + invaders.getHeight(i) > minY && invaders.isActive(i)) {
+            tests++;
+            double t = bullets.sweep(b, 0, dy, invaders.getX(i), y, invaders.getWidth(i), invaders.getHeight(i));
+            if (t < first || (t == first && t != EntityStore.NO_HIT && i < hit)) {
+              first = t;
+              hit = i;
+            }
+          }
+        }
+        firstHits[b] = hit;
+      }
+      return tests;
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package com.spaceinvaders.core;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Hosts many independent GameSessions in one JVM. A single wheel thread keeps
+// a hashed timing wheel of session deadlines and hands each session that came
+// due to a work-stealing pool, which runs its ticks and puts it back on the
+// wheel. A session is on the wheel, in the pool or parked, never two at once,
+// so no lock is needed around it. Idle and finished sessions park and cost
+// nothing until input wakes them.
+// Backpressure: while dispatches run late on average, sessions play one tick
+// per run and drop the rest, and no new sessions are admitted.
+// Networked games run on GameServer instead, which explains why.
+// Usage: SessionManager [sessions] [activePercent] [seconds] [workers] [ticksPerSecond]
+public class SessionManager implements Runnable, AutoCloseable {
+  public static final int DEFAULT_MAX_SESSIONS = 16_384;
+  public static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+  public static final long DEFAULT_IDLE_NANOS = 30_000_000_000L;
+  static final int MAX_CATCH_UP_TICKS = 5;
+  private static final long WHEEL_RESOLUTION_NANOS = 1_000_000L;
+  private static final int WHEEL_SIZE = 1024;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  // Lateness is averaged over this many wheel ticks before the overload check
+  private static final int LOAD_WINDOW = 100;
+
+  private final ForkJoinPool pool;
+  private final int ticksPerSecond;
+  private final int maxSessions;
+  private final long overloadNanos;
+  private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong();
+  private final AtomicReference<GameSession> pending = new AtomicReference<>();
+  private final GameSession[] wheel = new GameSession[WHEEL_SIZE];
+  private final LongAdder latenessNanos = new LongAdder();
+  private final LongAdder dispatches = new LongAdder();
+  private final LongAdder ticks = new LongAdder();
+  private final LongAdder droppedTicks = new LongAdder();
+  private volatile long idleNanos = DEFAULT_IDLE_NANOS;
+  private volatile boolean overloaded;
+  private volatile long averageLatenessNanos;
+  private volatile boolean running = true;
+  // Wheel thread only: wheel tick n covers deadlines in
+  // [startNanos + n ms, startNanos + (n + 1) ms) and runs at the end of that span
+  private long startNanos;
+  private long wheelTick;
+  private Thread thread;
+
+  public SessionManager(int workers, int ticksPerSecond) {
+    this(new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true),
+        ticksPerSecond, DEFAULT_MAX_SESSIONS);
+  }
+
+  // Async mode keeps each worker's queue FIFO, so sessions run in the order
+  // they came due, and idle workers steal from busy ones
+  public SessionManager(ForkJoinPool pool, int ticksPerSecond, int maxSessions) {
+    this.pool = pool;
+    this.ticksPerSecond = ticksPerSecond;
+    this.maxSessions = maxSessions;
+    this.overloadNanos = 1_000_000_000L / ticksPerSecond / 2;
+  }
+
+  public synchronized void start() {
+    if (thread != null) {
+      return;
+    }
+    thread = new Thread(this, "session-wheel");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  // Null when the host is full or overloaded; the caller should retry later
+  // or send the player elsewhere
+  public GameSession createSession(long seed) {
+    return createSession(seed, DEFAULT_BUDGET_NANOS);
+  }
+
+  public GameSession createSession(long seed, long budgetNanos) {
+    if (!running || overloaded || sessions.size() >= maxSessions) {
+      return null;
+    }
+    GameSession session = new GameSession(nextId.getAndIncrement(), seed, this, ticksPerSecond, budgetNanos);
+    sessions.put(session.getId(), session);
+    schedule(session, System.nanoTime());
+    return session;
+  }
+
+  public GameSession getSession(long id) {
+    return sessions.get(id);
+  }
+
+  // The wheel drops a closed session the next time it comes due
+  public void closeSession(long id) {
+    GameSession session = sessions.remove(id);
+    if (session != null) {
+      session.close();
+    }
+  }
+
+  // Pushed onto a lock-free stack that the wheel thread takes whole each tick
+  void schedule(GameSession session, long deadline) {
+    session.deadline = deadline;
+    GameSession head;
+    do {
+      head = pending.get();
+      session.pendingNext = head;
+    } while (!pending.compareAndSet(head, session));
+  }
+
+  void recordLateness(long nanos) {
+    latenessNanos.add(Math.max(0, nanos));
+    dispatches.increment();
+  }
+
+  void recordTicks(long played, long dropped) {
+    ticks.add(played);
+    droppedTicks.add(dropped);
+  }
+
+  @Override
+  public void run() {
+    startNanos = System.nanoTime();
+    long next = startNanos + WHEEL_RESOLUTION_NANOS;
+    while (running) {
+      long remaining;
+      while (running && (remaining = next - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(remaining);
+      }
+      next += WHEEL_RESOLUTION_NANOS;
+
+      addPending();
+      expire(wheel[(int) (wheelTick & WHEEL_MASK)]);
+      wheelTick++;
+      if (wheelTick % LOAD_WINDOW == 0) {
+        updateLoad();
+      }
+    }
+  }
+
+  private void addPending() {
+    GameSession session = pending.getAndSet(null);
+    while (session != null) {
+      GameSession next = session.pendingNext;
+      session.pendingNext = null;
+      long due = Math.max(wheelTick, Math.floorDiv(session.deadline - startNanos, WHEEL_RESOLUTION_NANOS));
+      long ahead = due - wheelTick;
+      int bucket = (int) (due & WHEEL_MASK);
+      session.rounds = ahead / WHEEL_SIZE;
+      session.bucketNext = wheel[bucket];
+      wheel[bucket] = session;
+      session = next;
+    }
+  }
+
+  // Sessions due in a later round stay in the bucket, one round closer
+  private void expire(GameSession head) {
+    int bucket = (int) (wheelTick & WHEEL_MASK);
+    GameSession kept = null;
+    for (GameSession session = head; session != null; ) {
+      GameSession next = session.bucketNext;
+      session.bucketNext = null;
+      if (session.isClosed()) {
+        session = next;
+        continue;
+      }
+      if (session.rounds > 0) {
+        session.rounds--;
+        session.bucketNext = kept;
+        kept = session;
+      } else {
+        pool.execute(session);
+      }
+      session = next;
+    }
+    wheel[bucket] = kept;
+  }
+
+  // Hysteresis, so the host does not flap around the threshold
+  private void updateLoad() {
+    long count = dispatches.sumThenReset();
+    long lateness = latenessNanos.sumThenReset();
+    long average = count == 0 ? 0 : lateness / count;
+    averageLatenessNanos = average;
+    if (average > overloadNanos) {
+      overloaded = true;
+    } else if (average < overloadNanos / 2) {
+      overloaded = false;
+    }
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    Thread wheelThread;
+    synchronized (this) {
+      wheelThread = thread;
+    }
+    if (wheelThread != null) {
+      LockSupport.unpark(wheelThread);
+      try {
+        wheelThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    for (GameSession session : sessions.values()) {
+      session.close();
+    }
+    sessions.clear();
+    pool.shutdown();
+    try {
+      pool.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Also builds the sessions' next levels, see GameEngine.setPreloadExecutor
+  ForkJoinPool getPool() { return pool; }
+  public Collection<GameSession> getSessions() { return sessions.values(); }
+  public int getSessionCount() { return sessions.size(); }
+  public int getTicksPerSecond() { return ticksPerSecond; }
+  public boolean isOverloaded() { return overloaded; }
+  public long getAverageLatenessNanos() { return averageLatenessNanos; }
+  public long getTicks() { return ticks.sum(); }
+  public long getDroppedTicks() { return droppedTicks.sum(); }
+  public long getIdleNanos() { return idleNanos; }
+  public void setIdleNanos(long idleNanos) { this.idleNanos = idleNanos; }
+
+  public static void main(String[] args) throws InterruptedException {
+    int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int activePercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+    int ticksPerSecond = args.length > 4 ? Integer.parseInt(args[4]) : GameLoop.DEFAULT_TICK_RATE;
+
+    SessionManager manager = new SessionManager(workers, ticksPerSecond);
+    manager.setIdleNanos(1_000_000_000L);
+    manager.start();
+
+    GameSession[] active = new GameSession[sessionCount * activePercent / 100];
+    int created = 0;
+    int rejected = 0;
+    for (int i = 0; i < sessionCount; i++) {
+      GameSession session = manager.createSession(i);
+      if (session == null) {
+        if (manager.getSessionCount() >= DEFAULT_MAX_SESSIONS) break;
+        // Backpressure: wait for the host to catch up and try again
+        rejected++;
+        LockSupport.parkNanos(10_000_000L);
+        i--;
+        continue;
+      }
+      if (created < active.length) {
+        active[created] = session;
+      }
+      created++;
+    }
+
+    // Active sessions hold random keys, changed every eight ticks or so; the
+    // rest go idle and park
+    GameRandom random = new GameRandom(42);
+    long period = 1_000_000_000L / ticksPerSecond * 8;
+    long end = System.nanoTime() + seconds * 1_000_000_000L;
+    while (System.nanoTime() < end) {
+      for (GameSession session : active) {
+        if (session != null) {
+          session.setCommands(0, random.nextInt(16));
+        }
+      }
+      LockSupport.parkNanos(period);
+    }
+
+    int parked = 0;
+    for (GameSession session : manager.getSessions()) {
+      if (session.isParked()) parked++;
+    }
+    System.out.printf("%d sessions (%d parked, %d admissions deferred) on %d workers: %d ticks (%.0f/s), "
+            + "%d dropped, lateness %.2f ms, overloaded %b%n", created, parked, rejected, workers, manager.getTicks(),
+        manager.getTicks() / (double) seconds, manager.getDroppedTicks(),
+        manager.getAverageLatenessNanos() / 1e6, manager.isOverloaded());
+    manager.close();
+  }
+}
@@ -0,0 +1,99 @@
+package com.spaceinvaders.core;
+
+import java.util.Arrays;
+
+public class SpatialGrid {
+  private final int cellSize;
+  private final int cols;
+  private final int rows;
+  private final int[][] cells;
+  private final int[] cellCounts;
+
+  private int[] candidates = new int[16];
+  private int[] marks = new int[64];
+  private int markStamp;
+
+  public SpatialGrid(int width, int height, int cellSize) {
+    this.cellSize = cellSize;
+    this.cols = Math.max(1, (width + cellSize - 1) / cellSize);
+    this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+    this.cells = new int[cols * rows][4];
+    this.cellCounts = new int[cols * rows];
+  }
+
+  public void clear() {
+    Arrays.fill(cellCounts, 0);
+  }
+
+  public void insert(int id, int x, int y, int width, int height) {
+    if (id >= marks.length) {
+      marks = Arrays.copyOf(marks, Math.max(id + 1, marks.length * 2));
+    }
+
+    int minCol = toCol(x);
+    int maxCol = toCol(x + width - 1);
+    int minRow = toRow(y);
+    int maxRow = toRow(y + height - 1);
+
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int col = minCol; col <= maxCol; col++) {
+        int cell = row * cols + col;
+        int count = cellCounts[cell];
+        if (count == cells[cell].length) {
+          cells[cell] = Arrays.copyOf(cells[cell], count * 2);
+        }
+        cells[cell][count] = id;
+        cellCounts[cell] = count + 1;
+      }
+    }
+  }
+
+  // Collects the ids of every object sharing a cell with the given bounds,
+  // deduplicated and in ascending order so callers can keep insertion order.
+  public int query(int x, int y, int width, int height) {
+    if (++markStamp == 0) {
+      Arrays.fill(marks, 0);
+      markStamp = 1;
+    }
+
+    int minCol = toCol(x);
+    int maxCol = toCol(x + width - 1);
+    int minRow = toRow(y);
+    int maxRow = toRow(y + height - 1);
+
+    int found = 0;
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int col = minCol; col <= maxCol; col++) {
+        int cell = row * cols + col;
+        int[] ids = cells[cell];
+        for (int i = 0; i < cellCounts[cell]; i++) {
+          int id = ids[i];
+          if (marks[id] != markStamp) {
+            marks[id] = markStamp;
+            if (found == candidates.length) {
+              candidates = Arrays.copyOf(candidates, found * 2);
+            }
+            candidates[found++] = id;
+          }
+        }
+      }
+    }
+
+    if (found > 1) {
+      Arrays.sort(candidates, 0, found);
+    }
+    return found;
+  }
+
+  public int getCandidate(int index) {
+    return candidates[index];
+  }
+
+  private int toCol(int x) {
+    return Math.max(0, Math.min(cols - 1, Math.floorDiv(x, cellSize)));
+  }
+
+  private int toRow(int y) {
+    return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+  }
+}
@@ -0,0 +1,123 @@
+package com.spaceinvaders.core;
+
+import com.spaceinvaders.entities.EntityStore;
+import java.util.Arrays;
+
+// Broad phase along the x axis. Targets are kept sorted by their left edge
+// across ticks; the formation moves as one block, so the order barely changes
+// and an insertion sort fixes it in about linear time. Sweepers (bullets) are
+// sorted each pass and walked alongside, which leaves each sweeper with a
+// contiguous range of candidate targets in sorted order.
+public class SweepAndPrune {
+  private long[] targets = new long[64];
+  private int targetCount;
+  private int maxTargetWidth;
+
+  private long[] sweepers = new long[16];
+  private int[] sweeperMaxX = new int[16];
+  private int sweeperCount;
+  private int[] rangeStart = new int[16];
+  private int[] rangeEnd = new int[16];
+
+  // Keys pack the left edge above the slot, so sorting them sorts by x with
+  // ties broken by slot. They always cover slots 0..size-1, so while the size
+  // is unchanged only their x needs refreshing.
+  public void sortTargets(EntityStore<?> store) {
+    int size = store.size();
+    if (size != targetCount) {
+      if (size > targets.length) {
+        targets = new long[Math.max(size, targets.length * 2)];
+      }
+      for (int i = 0; i < size; i++) {
+        targets[i] = key(store.getX(i), i);
+      }
+      targetCount = size;
+      Arrays.sort(targets, 0, size);
+    } else {
+      for (int k = 0; k < size; k++) {
+        int slot = slotOf(targets[k]);
+        targets[k] = key(store.getX(slot), slot);
+      }
+      insertionSort(targets, targetCount);
+    }
+
+    maxTargetWidth = 0;
+    for (int i = 0; i < size; i++) {
+      maxTargetWidth = Math.max(maxTargetWidth, store.getWidth(i));
+    }
+  }
+
+  public void clearSweepers() {
+    sweeperCount = 0;
+  }
+
+  // minX and maxX bound everything the sweeper covered this tick
+  public void addSweeper(int id, int minX, int maxX) {
+    if (sweeperCount == sweepers.length) {
+      sweepers = Arrays.copyOf(sweepers, sweeperCount * 2);
+    }
+    if (id >= sweeperMaxX.length) {
+      int capacity = Math.max(id + 1, sweeperMaxX.length * 2);
+      sweeperMaxX = Arrays.copyOf(sweeperMaxX, capacity);
+      rangeStart = Arrays.copyOf(rangeStart, capacity);
+      rangeEnd = Arrays.copyOf(rangeEnd, capacity);
+    }
+    sweepers[sweeperCount++] = key(minX, id);
+    sweeperMaxX[id] = maxX;
+  }
+
+  // A target is a candidate when its x interval overlaps the sweeper's. The
+  // start only moves forward because sweepers are visited left to right and no
+  // target is wider than maxTargetWidth.
+  public void sweep() {
+    Arrays.sort(sweepers, 0, sweeperCount);
+
+    int start = 0;
+    for (int s = 0; s < sweeperCount; s++) {
+      int id = slotOf(sweepers[s]);
+      int minX = xOf(sweepers[s]);
+      int maxX = sweeperMaxX[id];
+
+      while (start < targetCount && xOf(targets[start]) + maxTargetWidth <= minX) {
+        start++;
+      }
+      int end = start;
+      while (end < targetCount && xOf(targets[end]) < maxX) {
+        end++;
+      }
+      rangeStart[id] = start;
+      rangeEnd[id] = end;
+    }
+  }
+
+  public int getSweeperCount() { return sweeperCount; }
+  // Sweepers in x order after sweep(), so neighbouring indices are neighbouring regions
+  public int getSweeper(int index) { return slotOf(sweepers[index]); }
+  public int getRangeStart(int id) { return rangeStart[id]; }
+  public int getRangeEnd(int id) { return rangeEnd[id]; }
+  public int getTarget(int index) { return slotOf(targets[index]); }
+
+  private static void insertionSort(long[] keys, int count) {
+    for (int i = 1; i < count; i++) {
+      long key = keys[i];
+      int j = i - 1;
+      while (j >= 0 && keys[j] > key) {
+        keys[j + 1] = keys[j];
+        j--;
+      }
+      keys[j + 1] = key;
+    }
+  }
+
+  private static long key(int x, int slot) {
+    return (long) x << 32 | slot;
+  }
+
+  private static int xOf(long key) {
+    return (int) (key >> 32);
+  }
+
+  private static int slotOf(long key) {
+    return (int) key;
+  }
+}
@@ -0,0 +1,25 @@
+package com.spaceinvaders.core;
+
+// Game time derived from the engine's tick counter, so a run depends only on
+// its seed and input and can be replayed exactly
+public class TickClock implements GameClock {
+  private final int ticksPerSecond;
+  private long tick;
+
+  public TickClock(int ticksPerSecond) {
+    this.ticksPerSecond = ticksPerSecond;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+    return tick * 1000 / ticksPerSecond;
+  }
+
+  @Override
+  public void onTick(long tick) {
+    this.tick = tick;
+  }
+
+  @Override
+  public int getTicksPerSecond() { return ticksPerSecond; }
+}
@@ -3,24 +3,30 @@ package com.spaceinvaders.entities;
 import com.spaceinvaders.enums.BulletType;
 
 public class Bullet extends GameObject {
-  private BulletType type;
-  private int damage;
+  public static final int WIDTH = 4;
+  public static final int HEIGHT = 10;
+  private static final BulletType[] TYPES = BulletType.values();
 
-  public Bullet(int x, int y, BulletType type) {
-    super(x, y, 4, 10);
-    this.type = type;
-    this.damage = (type == BulletType.PLAYER) ? 25 : 10;
+  public Bullet() {
+  }
+
+  public Bullet(EntityStore<Bullet> store, int x, int y, BulletType type) {
+    reset(store, x, y, type);
+  }
+
+  public void reset(EntityStore<Bullet> store, int x, int y, BulletType type) {
+    attach(store, x, y, WIDTH, HEIGHT, type.ordinal());
   }
 
   public boolean isOutOfBounds(int screenHeight) {
-    return y < 0 || y > screenHeight;
+    return getY() < 0 || getY() > screenHeight;
   }
 
   public int getDamage() {
-    return damage;
+    return (getType() == BulletType.PLAYER) ? 25 : 10;
   }
 
   public BulletType getType() {
-    return type;
+    return TYPES[getTypeOrdinal()];
   }
-}
\ No newline at end of file
+}
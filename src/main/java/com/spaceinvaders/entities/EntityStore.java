@@ -0,0 +1,307 @@
+package com.spaceinvaders.entities;
+
+import com.spaceinvaders.factory.EntityPool;
+import com.spaceinvaders.strategy.TickScale;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class EntityStore<T extends GameObject> implements Iterable<T> {
+  private static final int DEFAULT_CAPACITY = 64;
+  public static final double NO_HIT = Double.POSITIVE_INFINITY;
+
+  int[] x;
+  int[] y;
+  int[] prevX;
+  int[] prevY;
+  int[] width;
+  int[] height;
+  int[] velocityX;
+  int[] velocityY;
+  byte[] type;
+  final BitSet active = new BitSet();
+
+  private GameObject[] views;
+  private int size;
+  private int liveCount;
+  private boolean dirty;
+  private EntityPool<T> pool;
+
+  public EntityStore() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public EntityStore(int capacity) {
+    capacity = Math.max(1, capacity);
+    x = new int[capacity];
+    y = new int[capacity];
+    prevX = new int[capacity];
+    prevY = new int[capacity];
+    width = new int[capacity];
+    height = new int[capacity];
+    velocityX = new int[capacity];
+    velocityY = new int[capacity];
+    type = new byte[capacity];
+    views = new GameObject[capacity];
+  }
+
+  void add(GameObject view, int x, int y, int width, int height, int type) {
+    if (size == views.length) {
+      grow();
+    }
+
+    int slot = size++;
+    this.x[slot] = x;
+    this.y[slot] = y;
+    this.prevX[slot] = x;
+    this.prevY[slot] = y;
+    this.width[slot] = width;
+    this.height[slot] = height;
+    this.velocityX[slot] = 0;
+    this.velocityY[slot] = 0;
+    this.type[slot] = (byte) type;
+    this.active.set(slot);
+    this.liveCount++;
+    this.views[slot] = view;
+    view.store = this;
+    view.slot = slot;
+  }
+
+  // Replaces the contents with count live entities copied from the given
+  // columns, all of one size and velocity. Views come from the pool, so once
+  // it is warm a refill allocates nothing.
+  public void load(int count, int[] x, int[] y, byte[] type, int width, int height,
+                   int velocityX, int velocityY) {
+    if (pool == null) {
+      throw new IllegalStateException("Loading a store needs a pool for its views");
+    }
+    clear();
+    while (views.length < count) {
+      grow();
+    }
+
+    System.arraycopy(x, 0, this.x, 0, count);
+    System.arraycopy(y, 0, this.y, 0, count);
+    System.arraycopy(x, 0, prevX, 0, count);
+    System.arraycopy(y, 0, prevY, 0, count);
+    System.arraycopy(type, 0, this.type, 0, count);
+    Arrays.fill(this.width, 0, count, width);
+    Arrays.fill(this.height, 0, count, height);
+    Arrays.fill(this.velocityX, 0, count, velocityX);
+    Arrays.fill(this.velocityY, 0, count, velocityY);
+    active.set(0, count);
+    for (int slot = 0; slot < count; slot++) {
+      T view = pool.acquire();
+      views[slot] = view;
+      view.store = this;
+      view.slot = slot;
+    }
+    size = count;
+    liveCount = count;
+  }
+
+  private void grow() {
+    int capacity = views.length * 2;
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    prevX = Arrays.copyOf(prevX, capacity);
+    prevY = Arrays.copyOf(prevY, capacity);
+    width = Arrays.copyOf(width, capacity);
+    height = Arrays.copyOf(height, capacity);
+    velocityX = Arrays.copyOf(velocityX, capacity);
+    velocityY = Arrays.copyOf(velocityY, capacity);
+    type = Arrays.copyOf(type, capacity);
+    views = Arrays.copyOf(views, capacity);
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int slot) {
+    return (T) views[slot];
+  }
+
+  public int size() { return size; }
+  public boolean isActive(int slot) { return active.get(slot); }
+  public int getX(int slot) { return x[slot]; }
+  public int getY(int slot) { return y[slot]; }
+  public int getPrevX(int slot) { return prevX[slot]; }
+  public int getPrevY(int slot) { return prevY[slot]; }
+  public int getWidth(int slot) { return width[slot]; }
+  public int getHeight(int slot) { return height[slot]; }
+  public int getType(int slot) { return type[slot]; }
+  public int getVelocityX(int slot) { return velocityX[slot]; }
+  public int getVelocityY(int slot) { return velocityY[slot]; }
+
+  public void deactivate(int slot) {
+    if (active.get(slot)) {
+      active.clear(slot);
+      liveCount--;
+      dirty = true;
+    }
+  }
+
+  public int getLiveCount() { return liveCount; }
+  public boolean isDirty() { return dirty; }
+
+  public boolean overlaps(int slot, int otherX, int otherY, int otherWidth, int otherHeight) {
+    return x[slot] < otherX + otherWidth &&
+        x[slot] + width[slot] > otherX &&
+        y[slot] < otherY + otherHeight &&
+        y[slot] + height[slot] > otherY;
+  }
+
+  // Continuous version of overlaps for an entity that moved by (dx, dy) this
+  // tick to its current position: the fraction of the move at which it first
+  // overlaps the other box, or NO_HIT. Each axis gives the open interval of t
+  // where the boxes overlap on it; a hit is a non-empty intersection in [0, 1].
+  public double sweep(int slot, int dx, int dy, int otherX, int otherY, int otherWidth, int otherHeight) {
+    double enter = 0;
+    double exit = 1;
+
+    int startX = x[slot] - dx;
+    if (dx == 0) {
+      if (startX >= otherX + otherWidth || startX + width[slot] <= otherX) {
+        return NO_HIT;
+      }
+    } else {
+      double t1 = (double) (otherX - width[slot] - startX) / dx;
+      double t2 = (double) (otherX + otherWidth - startX) / dx;
+      enter = Math.max(enter, Math.min(t1, t2));
+      exit = Math.min(exit, Math.max(t1, t2));
+    }
+
+    int startY = y[slot] - dy;
+    if (dy == 0) {
+      if (startY >= otherY + otherHeight || startY + height[slot] <= otherY) {
+        return NO_HIT;
+      }
+    } else {
+      double t1 = (double) (otherY - height[slot] - startY) / dy;
+      double t2 = (double) (otherY + otherHeight - startY) / dy;
+      enter = Math.max(enter, Math.min(t1, t2));
+      exit = Math.min(exit, Math.max(t1, t2));
+    }
+
+    return enter < exit ? enter : NO_HIT;
+  }
+
+  public void savePreviousPositions() {
+    System.arraycopy(x, 0, prevX, 0, size);
+    System.arraycopy(y, 0, prevY, 0, size);
+  }
+
+  public void setPrevious(int slot, int prevX, int prevY) {
+    this.prevX[slot] = prevX;
+    this.prevY[slot] = prevY;
+  }
+
+  public void translate(int slot, int dx, int dy) {
+    x[slot] += dx;
+    y[slot] += dy;
+  }
+
+  // Moves the entity by its velocity over the given tick, see TickScale,
+  // with each axis multiplied by its scale
+  public void advance(int slot, TickScale tickScale, long tick, int scaleX, int scaleY) {
+    x[slot] += tickScale.step(velocityX[slot], tick) * scaleX;
+    y[slot] += tickScale.step(velocityY[slot], tick) * scaleY;
+  }
+
+  // Moves every live entity by its own velocity, scaled per axis
+  public void advanceActive(TickScale tickScale, long tick, int scaleX, int scaleY) {
+    advanceActive(tickScale, tick, scaleX, scaleY, 0, size);
+  }
+
+  // Same for slots [from, to); disjoint ranges can run on different threads
+  public void advanceActive(TickScale tickScale, long tick, int scaleX, int scaleY, int from, int to) {
+    to = Math.min(to, size);
+    for (int i = active.nextSetBit(from); i >= 0 && i < to; i = active.nextSetBit(i + 1)) {
+      x[i] += tickScale.step(velocityX[i], tick) * scaleX;
+      y[i] += tickScale.step(velocityY[i], tick) * scaleY;
+    }
+  }
+
+  // Fills each dead slot with the last slot, so removal is O(1) per entity
+  // but does not preserve order. Does nothing unless something died.
+  public void compact() {
+    if (!dirty) {
+      return;
+    }
+
+    int slot = active.nextClearBit(0);
+    while (slot < size) {
+      recycle(slot);
+      int last = --size;
+      if (slot != last) {
+        moveSlot(last, slot);
+        if (active.get(last)) {
+          active.set(slot);
+          active.clear(last);
+        }
+      }
+      views[last] = null;
+
+      if (!active.get(slot)) {
+        continue;
+      }
+      slot = active.nextClearBit(slot + 1);
+    }
+    dirty = false;
+  }
+
+  private void moveSlot(int from, int to) {
+    x[to] = x[from];
+    y[to] = y[from];
+    prevX[to] = prevX[from];
+    prevY[to] = prevY[from];
+    width[to] = width[from];
+    height[to] = height[from];
+    velocityX[to] = velocityX[from];
+    velocityY[to] = velocityY[from];
+    type[to] = type[from];
+    views[to] = views[from];
+    views[to].slot = to;
+  }
+
+  private void recycle(int slot) {
+    T view = get(slot);
+    view.detach();
+    if (pool != null) {
+      pool.release(view);
+    }
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      recycle(i);
+    }
+    Arrays.fill(views, 0, size, null);
+    active.clear();
+    size = 0;
+    liveCount = 0;
+    dirty = false;
+  }
+
+  public EntityPool<T> getPool() { return pool; }
+  public void setPool(EntityPool<T> pool) { this.pool = pool; }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < size;
+      }
+
+      @Override
+      public T next() {
+        if (next >= size) {
+          throw new NoSuchElementException();
+        }
+        return get(next++);
+      }
+    };
+  }
+}
@@ -3,19 +3,24 @@ package com.spaceinvaders.entities;
 import com.spaceinvaders.strategy.MovementStrategy;
 
 public abstract class GameObject {
-  protected int x;
-  protected int y;
-  protected int width;
-  protected int height;
-  protected boolean active;
+  EntityStore<?> store;
+  int slot = -1;
   public MovementStrategy movementStrategy;
 
-  public GameObject(int x, int y, int width, int height) {
-    this.x = x;
-    this.y = y;
-    this.width = width;
-    this.height = height;
-    this.active = true;
+  protected GameObject() {
+  }
+
+  protected GameObject(EntityStore<?> store, int x, int y, int width, int height, int type) {
+    attach(store, x, y, width, height, type);
+  }
+
+  protected void attach(EntityStore<?> store, int x, int y, int width, int height, int type) {
+    store.add(this, x, y, width, height, type);
+  }
+
+  void detach() {
+    store = null;
+    slot = -1;
   }
 
   public void setMovementStrategy(MovementStrategy strategy) {
@@ -29,23 +34,43 @@ public abstract class GameObject {
   }
 
   public boolean collidesWith(GameObject other) {
-    return x < other.x + other.width &&
-        x + width > other.x &&
-        y < other.y + other.height &&
-        y + height > other.y;
+    return store.overlaps(slot, other.getX(), other.getY(), other.getWidth(), other.getHeight());
+  }
+
+  public double getRenderX(double alpha) {
+    int prevX = store.prevX[slot];
+    return prevX + (store.x[slot] - prevX) * alpha;
+  }
+
+  public double getRenderY(double alpha) {
+    int prevY = store.prevY[slot];
+    return prevY + (store.y[slot] - prevY) * alpha;
   }
 
   public void destroy() {
-    active = false;
+    if (store != null) {
+      store.deactivate(slot);
+    }
   }
 
-  public int getX() { return x; }
-  public int getY() { return y; }
-  public int getWidth() { return width; }
-  public int getHeight() { return height; }
-  public boolean isActive() { return active; }
+  public int getX() { return store.x[slot]; }
+  public int getY() { return store.y[slot]; }
+  public int getPrevX() { return store.prevX[slot]; }
+  public int getPrevY() { return store.prevY[slot]; }
+  public int getWidth() { return store.width[slot]; }
+  public int getHeight() { return store.height[slot]; }
+  public int getVelocityX() { return store.velocityX[slot]; }
+  public int getVelocityY() { return store.velocityY[slot]; }
+  public int getSlot() { return slot; }
+  public boolean isActive() { return store != null && store.active.get(slot); }
+
+  protected int getTypeOrdinal() { return store.type[slot]; }
 
-  public void setX(int x) { this.x = x; }
-  public void setY(int y) { this.y = y; }
-  public void setPosition(int x, int y) { this.x = x; this.y = y; }
-}
\ No newline at end of file
+  public void setX(int x) { store.x[slot] = x; }
+  public void setY(int y) { store.y[slot] = y; }
+  public void setPosition(int x, int y) { store.x[slot] = x; store.y[slot] = y; }
+  public void setVelocity(int velocityX, int velocityY) {
+    store.velocityX[slot] = velocityX;
+    store.velocityY[slot] = velocityY;
+  }
+}
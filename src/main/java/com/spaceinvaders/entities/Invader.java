@@ -1,56 +1,30 @@
 package com.spaceinvaders.entities;
 
 import com.spaceinvaders.factory.EntityFactory;
-import com.spaceinvaders.core.GameManager;
 import com.spaceinvaders.enums.InvaderType;
 
+// Points and fire rates are per type and come from the level set, see LevelSet
 public class Invader extends GameObject {
+  public static final int WIDTH = 30;
+  public static final int HEIGHT = 20;
+  private static final InvaderType[] TYPES = InvaderType.values();
 
-  public Object movementStrategy;
-  private InvaderType type;
-  private int points;
-  private double shootChance;
-
-  public Invader(int x, int y, InvaderType type) {
-    super(x, y, 30, 20);
-    this.type = type;
-    setStatsBasedOnType();
+  public Invader() {
   }
 
-  private void setStatsBasedOnType() {
-    switch (type) {
-      case BASIC:
-        points = 10;
-        shootChance = 0.001;
-        break;
-      case MEDIUM:
-        points = 20;
-        shootChance = 0.002;
-        break;
-      case FAST:
-        points = 30;
-        shootChance = 0.003;
-        break;
-    }
+  public Invader(EntityStore<Invader> store, int x, int y, InvaderType type) {
+    reset(store, x, y, type);
   }
 
-  public Bullet tryShoot() {
-    if (Math.random() < shootChance) {
-      return EntityFactory.createInvaderBullet(x + width/2, y + height);
-    }
-    return null;
+  public void reset(EntityStore<Invader> store, int x, int y, InvaderType type) {
+    attach(store, x, y, WIDTH, HEIGHT, type.ordinal());
   }
 
-  public int getPoints() {
-    return points;
+  public Bullet shoot(EntityStore<Bullet> bullets) {
+    return EntityFactory.createInvaderBullet(bullets, getX() + getWidth()/2, getY() + getHeight());
   }
 
   public InvaderType getType() {
-    return type;
-  }
-
-  public void destroy() {
-    super.destroy();
-    GameManager.getInstance().addScore(points);
+    return TYPES[getTypeOrdinal()];
   }
-}
\ No newline at end of file
+}
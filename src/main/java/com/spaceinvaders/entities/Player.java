@@ -3,25 +3,28 @@ package com.spaceinvaders.entities;
 import com.spaceinvaders.factory.EntityFactory;
 
 public class Player extends GameObject {
+  public static final int WIDTH = 40;
+  public static final int HEIGHT = 30;
+
   private int health;
   private int fireRate;
   private long lastShotTime;
 
-  public Player(int x, int y) {
-    super(x, y, 40, 30);
+  public Player(EntityStore<Player> store, int x, int y) {
+    super(store, x, y, WIDTH, HEIGHT, 0);
     this.health = 100;
     this.fireRate = 300;
     this.lastShotTime = 0;
   }
 
-  public boolean canShoot() {
-    return System.currentTimeMillis() - lastShotTime >= fireRate;
+  public boolean canShoot(long now) {
+    return now - lastShotTime >= fireRate;
   }
 
-  public Bullet shoot() {
-    if (canShoot()) {
-      lastShotTime = System.currentTimeMillis();
-      return EntityFactory.createPlayerBullet(x + width/2, y);
+  public Bullet shoot(long now, EntityStore<Bullet> bullets) {
+    if (canShoot(now)) {
+      lastShotTime = now;
+      return EntityFactory.createPlayerBullet(bullets, getX() + getWidth()/2, getY());
     }
     return null;
   }
@@ -41,6 +44,20 @@ public class Player extends GameObject {
     return health;
   }
 
+  public int getFireRate() {
+    return fireRate;
+  }
+
+  public long getLastShotTime() {
+    return lastShotTime;
+  }
+
+  public void restore(int health, int fireRate, long lastShotTime) {
+    this.health = health;
+    this.fireRate = fireRate;
+    this.lastShotTime = lastShotTime;
+  }
+
   public void upgradeFireRate() {
     fireRate = Math.max(100, fireRate - 50);
   }
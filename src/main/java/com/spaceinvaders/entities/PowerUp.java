@@ -1,18 +1,27 @@
 package com.spaceinvaders.entities;
 
-import com.spaceinvaders.core.GameManager;
 import com.spaceinvaders.enums.PowerUpType;
 
 public class PowerUp extends GameObject {
-  private PowerUpType type;
+  public static final int WIDTH = 20;
+  public static final int HEIGHT = 20;
+  private static final PowerUpType[] TYPES = PowerUpType.values();
 
-  public PowerUp(int x, int y, PowerUpType type) {
-    super(x, y, 20, 20);
-    this.type = type;
+  public PowerUp() {
   }
 
+  public PowerUp(EntityStore<PowerUp> store, int x, int y, PowerUpType type) {
+    reset(store, x, y, type);
+  }
+
+  public void reset(EntityStore<PowerUp> store, int x, int y, PowerUpType type) {
+    attach(store, x, y, WIDTH, HEIGHT, type.ordinal());
+  }
+
+  // Effects on the player only; the engine publishes POWER_UP_COLLECTED and
+  // GameManager grants EXTRA_LIFE from there
   public void applyEffect(Player player) {
-    switch (type) {
+    switch (getType()) {
       case HEALTH:
         player.heal(25);
         break;
@@ -20,17 +29,16 @@ public class PowerUp extends GameObject {
         player.upgradeFireRate();
         break;
       case EXTRA_LIFE:
-        GameManager.getInstance().addScore(0);
         break;
     }
     destroy();
   }
 
   public PowerUpType getType() {
-    return type;
+    return TYPES[getTypeOrdinal()];
   }
 
   public boolean isOutOfBounds(int screenHeight) {
-    return y > screenHeight;
+    return getY() > screenHeight;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,5 @@
+package com.spaceinvaders.enums;
+
+public enum CollisionMode {
+  SWEEP_AND_PRUNE, GRID, BRUTE_FORCE
+}
@@ -0,0 +1,5 @@
+package com.spaceinvaders.enums;
+
+public enum GameEventType {
+  INVADER_KILLED, PLAYER_HIT, POWER_UP_COLLECTED, LEVEL_COMPLETE
+}
@@ -0,0 +1,5 @@
+package com.spaceinvaders.enums;
+
+public enum InputCommand {
+  LEFT, RIGHT, SHOOT, RESTART
+}
@@ -0,0 +1,5 @@
+package com.spaceinvaders.enums;
+
+public enum RenderLayer {
+  BACKGROUND, PLAYER, INVADERS, BULLETS, POWER_UPS, UI
+}
@@ -0,0 +1,5 @@
+package com.spaceinvaders.enums;
+
+public enum RenderMode {
+  PASSIVE, ACTIVE
+}
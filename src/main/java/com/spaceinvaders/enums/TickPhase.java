@@ -0,0 +1,6 @@
+package com.spaceinvaders.enums;
+
+public enum TickPhase {
+  UPDATE_PLAYER, UPDATE_INVADERS, UPDATE_BULLETS, UPDATE_POWER_UPS,
+  CHECK_COLLISIONS, CHECK_WIN_CONDITION, CLEANUP, DISPATCH_EVENTS
+}
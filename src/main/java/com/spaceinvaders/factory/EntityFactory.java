@@ -3,36 +3,53 @@ package com.spaceinvaders.factory;
 import com.spaceinvaders.entities.*;
 import com.spaceinvaders.strategy.*;
 import com.spaceinvaders.enums.*;
+import java.util.function.Supplier;
 
+// Velocities are in px per base tick, see TickScale
 public class EntityFactory {
+  public static final BulletMovement BULLET_MOVEMENT = new BulletMovement();
 
-  public static Player createPlayer(int x, int y) {
-    Player player = new Player(x, y);
+  public static Player createPlayer(EntityStore<Player> store, int x, int y) {
+    Player player = new Player(store, x, y);
     player.setMovementStrategy(new PlayerMovement());
     return player;
   }
 
-  public static Invader createInvader(int x, int y, InvaderType type) {
-    Invader invader = new Invader(x, y, type);
-    invader.setMovementStrategy(new InvaderMovement());
+  public static Invader createInvader(EntityStore<Invader> store, int x, int y, InvaderType type,
+                                      InvaderMovement movement) {
+    Invader invader = obtain(store, Invader::new);
+    invader.reset(store, x, y, type);
+    invader.setMovementStrategy(movement);
+    invader.setVelocity(1, 0);
     return invader;
   }
 
-  public static Bullet createPlayerBullet(int x, int y) {
-    Bullet bullet = new Bullet(x, y, BulletType.PLAYER);
-    bullet.setMovementStrategy(new BulletMovement(8, -1));
+  public static Bullet createPlayerBullet(EntityStore<Bullet> store, int x, int y) {
+    Bullet bullet = obtain(store, Bullet::new);
+    bullet.reset(store, x, y, BulletType.PLAYER);
+    bullet.setMovementStrategy(BULLET_MOVEMENT);
+    bullet.setVelocity(0, -8);
     return bullet;
   }
 
-  public static Bullet createInvaderBullet(int x, int y) {
-    Bullet bullet = new Bullet(x, y, BulletType.INVADER);
-    bullet.setMovementStrategy(new BulletMovement(4, 1));
+  public static Bullet createInvaderBullet(EntityStore<Bullet> store, int x, int y) {
+    Bullet bullet = obtain(store, Bullet::new);
+    bullet.reset(store, x, y, BulletType.INVADER);
+    bullet.setMovementStrategy(BULLET_MOVEMENT);
+    bullet.setVelocity(0, 4);
     return bullet;
   }
 
-  public static PowerUp createPowerUp(int x, int y, PowerUpType type) {
-    PowerUp powerUp = new PowerUp(x, y, type);
-    powerUp.setMovementStrategy(new BulletMovement(2, 1));
+  public static PowerUp createPowerUp(EntityStore<PowerUp> store, int x, int y, PowerUpType type) {
+    PowerUp powerUp = obtain(store, PowerUp::new);
+    powerUp.reset(store, x, y, type);
+    powerUp.setMovementStrategy(BULLET_MOVEMENT);
+    powerUp.setVelocity(0, 2);
     return powerUp;
   }
-}
\ No newline at end of file
+
+  private static <T extends GameObject> T obtain(EntityStore<T> store, Supplier<T> constructor) {
+    EntityPool<T> pool = store.getPool();
+    return pool != null ? pool.acquire() : constructor.get();
+  }
+}
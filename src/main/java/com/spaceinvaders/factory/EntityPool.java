@@ -0,0 +1,84 @@
+package com.spaceinvaders.factory;
+
+import com.spaceinvaders.entities.GameObject;
+import com.spaceinvaders.jfr.PoolExhaustedEvent;
+import java.util.function.Supplier;
+
+public class EntityPool<T extends GameObject> {
+  private final Supplier<T> factory;
+  private final Object[] free;
+  private int freeCount;
+
+  private long hits;
+  private long misses;
+  private int inUse;
+  private int highWater;
+
+  public EntityPool(Supplier<T> factory, int capacity) {
+    this.factory = factory;
+    this.free = new Object[capacity];
+  }
+
+  public void prefill(int count) {
+    while (freeCount < Math.min(count, free.length)) {
+      free[freeCount++] = factory.get();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public T acquire() {
+    inUse++;
+    highWater = Math.max(highWater, inUse);
+
+    if (freeCount > 0) {
+      hits++;
+      T object = (T) free[--freeCount];
+      free[freeCount] = null;
+      return object;
+    }
+
+    misses++;
+    T object = factory.get();
+    PoolExhaustedEvent event = new PoolExhaustedEvent();
+    if (event.shouldCommit()) {
+      event.objectType = object.getClass();
+      event.capacity = free.length;
+      event.inUse = inUse;
+      event.misses = misses;
+      event.commit();
+    }
+    return object;
+  }
+
+  // Objects beyond the pool's capacity are left to the garbage collector.
+  // Every view a store holds came from acquire, so releasing with none in
+  // use means one was released twice.
+  public void release(T object) {
+    if (inUse == 0) {
+      throw new IllegalStateException("Released with none in use: " + object.getClass().getSimpleName());
+    }
+    inUse--;
+    if (freeCount < free.length) {
+      free[freeCount++] = object;
+    }
+  }
+
+  public void resetStats() {
+    hits = 0;
+    misses = 0;
+    highWater = inUse;
+  }
+
+  public long getHits() { return hits; }
+  public long getMisses() { return misses; }
+  public int getInUse() { return inUse; }
+  public int getHighWater() { return highWater; }
+  public int getAvailable() { return freeCount; }
+  public int getCapacity() { return free.length; }
+
+  @Override
+  public String toString() {
+    return "hits=" + hits + ", misses=" + misses + ", inUse=" + inUse
+        + ", highWater=" + highWater + ", available=" + freeCount + "/" + free.length;
+  }
+}
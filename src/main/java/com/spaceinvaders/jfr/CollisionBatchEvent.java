@@ -0,0 +1,22 @@
+package com.spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.spaceinvaders.CollisionBatch")
+@Label("Collision Batch")
+@Category({"Space Invaders", "Engine"})
+@Description("The collision pass of one tick")
+@StackTrace(false)
+public class CollisionBatchEvent extends jdk.jfr.Event {
+  @Label("Tick") public long tick;
+  @Label("Mode") public String mode;
+  @Label("Bullets") public int bullets;
+  @Label("Invaders") public int invaders;
+  @Label("Tests") public long tests;
+  @Label("Bullet Hits") public int hits;
+  @Label("Invaders Destroyed") public int invadersDestroyed;
+}
@@ -0,0 +1,41 @@
+package com.spaceinvaders.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+// A continuous recording with the game's events on top of a JDK settings
+// profile ("default" or "profile"), kept for a bounded age and dumped on exit
+public final class FlightRecording {
+  public static final String DEFAULT_SETTINGS = "default";
+  private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+  private FlightRecording() {
+  }
+
+  public static Recording start(Path destination, String settings) throws IOException {
+    Configuration configuration;
+    try {
+      configuration = Configuration.getConfiguration(settings);
+    } catch (ParseException e) {
+      throw new IOException("Could not parse JFR settings " + settings, e);
+    }
+
+    Recording recording = new Recording(configuration);
+    recording.setName("spaceinvaders");
+    recording.enable(TickEvent.class);
+    recording.enable(CollisionBatchEvent.class);
+    recording.enable(LevelStartEvent.class);
+    recording.enable(LevelCompleteEvent.class);
+    recording.enable(PoolExhaustedEvent.class);
+    recording.setToDisk(true);
+    recording.setMaxAge(MAX_AGE);
+    recording.setDestination(destination);
+    recording.setDumpOnExit(true);
+    recording.start();
+    return recording;
+  }
+}
@@ -0,0 +1,19 @@
+package com.spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Begins when the level starts, so its duration is the time spent on the level
+@Name("com.spaceinvaders.LevelComplete")
+@Label("Level Complete")
+@Category({"Space Invaders", "Game"})
+@Description("A level was cleared; the duration covers the whole level")
+@StackTrace(false)
+public class LevelCompleteEvent extends jdk.jfr.Event {
+  @Label("Level") public int level;
+  @Label("Score") public int score;
+  @Label("Lives") public int lives;
+}
@@ -0,0 +1,17 @@
+package com.spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.spaceinvaders.LevelStart")
+@Label("Level Start")
+@Category({"Space Invaders", "Game"})
+@StackTrace(false)
+public class LevelStartEvent extends jdk.jfr.Event {
+  @Label("Level") public int level;
+  @Label("Invaders") public int invaders;
+  @Label("Score") public int score;
+  @Label("Lives") public int lives;
+}
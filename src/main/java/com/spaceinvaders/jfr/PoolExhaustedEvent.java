@@ -0,0 +1,19 @@
+package com.spaceinvaders.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Every miss allocates an object the pool cannot take back once it is full,
+// which is garbage the collector has to deal with later
+@Name("com.spaceinvaders.PoolExhausted")
+@Label("Pool Exhausted")
+@Category({"Space Invaders", "Memory"})
+@Description("An entity pool had no free object and allocated a new one")
+public class PoolExhaustedEvent extends jdk.jfr.Event {
+  @Label("Object Type") public Class<?> objectType;
+  @Label("Capacity") public int capacity;
+  @Label("In Use") public int inUse;
+  @Label("Misses") public long misses;
+}
@@ -0,0 +1,43 @@
+package com.spaceinvaders.jfr;
+
+import com.spaceinvaders.enums.TickPhase;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One per simulated tick, with the same phase split as GameMetrics
+@Name("com.spaceinvaders.Tick")
+@Label("Game Tick")
+@Category({"Space Invaders", "Engine"})
+@Description("One fixed-timestep update of the game engine")
+@StackTrace(false)
+public class TickEvent extends jdk.jfr.Event {
+  @Label("Tick") public long tick;
+  @Label("Level") public int level;
+  @Label("Invaders") public int invaders;
+  @Label("Bullets") public int bullets;
+  @Label("Power-Ups") public int powerUps;
+  @Label("Collision Tests") public long collisionTests;
+  @Label("Update Player") @Timespan public long updatePlayer;
+  @Label("Update Invaders") @Timespan public long updateInvaders;
+  @Label("Update Bullets") @Timespan public long updateBullets;
+  @Label("Update Power-Ups") @Timespan public long updatePowerUps;
+  @Label("Check Collisions") @Timespan public long checkCollisions;
+  @Label("Check Win Condition") @Timespan public long checkWinCondition;
+  @Label("Cleanup") @Timespan public long cleanup;
+  @Label("Dispatch Events") @Timespan public long dispatchEvents;
+
+  public void setPhases(long[] phaseNanos) {
+    updatePlayer = phaseNanos[TickPhase.UPDATE_PLAYER.ordinal()];
+    updateInvaders = phaseNanos[TickPhase.UPDATE_INVADERS.ordinal()];
+    updateBullets = phaseNanos[TickPhase.UPDATE_BULLETS.ordinal()];
+    updatePowerUps = phaseNanos[TickPhase.UPDATE_POWER_UPS.ordinal()];
+    checkCollisions = phaseNanos[TickPhase.CHECK_COLLISIONS.ordinal()];
+    checkWinCondition = phaseNanos[TickPhase.CHECK_WIN_CONDITION.ordinal()];
+    cleanup = phaseNanos[TickPhase.CLEANUP.ordinal()];
+    dispatchEvents = phaseNanos[TickPhase.DISPATCH_EVENTS.ordinal()];
+  }
+}
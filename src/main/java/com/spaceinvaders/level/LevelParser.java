@@ -0,0 +1,195 @@
+package com.spaceinvaders.level;
+
+import com.spaceinvaders.enums.InvaderType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Line-based level text; '#' starts a comment and blank lines end a grid.
+//   type <char> <InvaderType> <points> <shootChance>   stats and grid symbol for a type
+//   speed <first> <step> <max>                          px per base tick curve for the waves after it
+//   wave [x y [spacingX spacingY]]                      starts a wave; its grid rows follow
+// Grid rows use the declared symbols and '.' for a gap. Each wave is compiled
+// to a LevelTemplate as soon as its grid ends.
+public final class LevelParser {
+  static final int DEFAULT_X = 50;
+  static final int DEFAULT_Y = 50;
+  static final int DEFAULT_SPACING_X = 60;
+  static final int DEFAULT_SPACING_Y = 40;
+  private static final InvaderType[] TYPES = InvaderType.values();
+  private static final char GAP = '.';
+
+  private final int[] points = new int[TYPES.length];
+  private final double[] shootChances = new double[TYPES.length];
+  private final byte[] typeBySymbol = new byte[128];
+  private final List<LevelTemplate> waves = new ArrayList<>();
+  private int firstSpeed = 1;
+  private int speedStep = 0;
+  private int maxSpeed = 1;
+
+  // Current wave, while its grid is being read
+  private boolean inWave;
+  private int originX;
+  private int originY;
+  private int spacingX;
+  private int spacingY;
+  private final List<String> rows = new ArrayList<>();
+  private int lineNumber;
+
+  private LevelParser() {
+    Arrays.fill(typeBySymbol, (byte) -1);
+  }
+
+  public static LevelSet load(Path path) throws IOException {
+    return parse(Files.readString(path, StandardCharsets.UTF_8));
+  }
+
+  public static LevelSet parse(String text) {
+    LevelParser parser = new LevelParser();
+    for (String line : text.split("\r?\n", -1)) {
+      parser.lineNumber++;
+      parser.parseLine(line);
+    }
+    parser.endWave();
+    return new LevelSet(parser.waves.toArray(new LevelTemplate[0]), parser.points, parser.shootChances, text);
+  }
+
+  private void parseLine(String line) {
+    int comment = line.indexOf('#');
+    String content = (comment >= 0 ? line.substring(0, comment) : line).strip();
+    if (content.isEmpty()) {
+      endWave();
+      return;
+    }
+
+    String[] tokens = content.split("\\s+");
+    switch (tokens[0]) {
+      case "type" -> {
+        endWave();
+        parseType(tokens);
+      }
+      case "speed" -> {
+        endWave();
+        expect(tokens, 4);
+        firstSpeed = parseInt(tokens[1]);
+        speedStep = parseInt(tokens[2]);
+        maxSpeed = parseInt(tokens[3]);
+        if (firstSpeed < 1 || maxSpeed < firstSpeed) {
+          throw error("Speeds must be at least 1 and max at least first");
+        }
+      }
+      case "wave" -> {
+        endWave();
+        if (tokens.length != 1 && tokens.length != 3 && tokens.length != 5) {
+          throw error("Expected wave [x y [spacingX spacingY]]");
+        }
+        inWave = true;
+        originX = tokens.length > 1 ? parseInt(tokens[1]) : DEFAULT_X;
+        originY = tokens.length > 1 ? parseInt(tokens[2]) : DEFAULT_Y;
+        spacingX = tokens.length > 3 ? parseInt(tokens[3]) : DEFAULT_SPACING_X;
+        spacingY = tokens.length > 3 ? parseInt(tokens[4]) : DEFAULT_SPACING_Y;
+      }
+      default -> {
+        if (!inWave || tokens.length != 1) {
+          throw error("Unexpected '" + content + "'");
+        }
+        for (int i = 0; i < content.length(); i++) {
+          char symbol = content.charAt(i);
+          if (symbol != GAP && (symbol >= typeBySymbol.length || typeBySymbol[symbol] < 0)) {
+            throw error("Undeclared type symbol '" + symbol + "'");
+          }
+        }
+        rows.add(content);
+      }
+    }
+  }
+
+  private void parseType(String[] tokens) {
+    expect(tokens, 5);
+    if (tokens[1].length() != 1 || tokens[1].charAt(0) == GAP || tokens[1].charAt(0) >= typeBySymbol.length) {
+      throw error("Type symbol must be one ASCII character other than '" + GAP + "'");
+    }
+    InvaderType type;
+    try {
+      type = InvaderType.valueOf(tokens[2]);
+    } catch (IllegalArgumentException e) {
+      throw error("Unknown invader type " + tokens[2]);
+    }
+    typeBySymbol[tokens[1].charAt(0)] = (byte) type.ordinal();
+    points[type.ordinal()] = parseInt(tokens[3]);
+    try {
+      shootChances[type.ordinal()] = Double.parseDouble(tokens[4]);
+    } catch (NumberFormatException e) {
+      throw error("Not a number: " + tokens[4]);
+    }
+  }
+
+  // Cells are laid out row by row from the top, which is the order
+  // FireScheduler needs to find the lowest invader in each column
+  private void endWave() {
+    if (!inWave) {
+      return;
+    }
+    inWave = false;
+
+    int count = 0;
+    int columns = 0;
+    for (String row : rows) {
+      columns = Math.max(columns, row.length());
+      for (int i = 0; i < row.length(); i++) {
+        if (row.charAt(i) != GAP) count++;
+      }
+    }
+    if (count == 0) {
+      throw error("Wave " + (waves.size() + 1) + " has no invaders");
+    }
+
+    int[] x = new int[count];
+    int[] y = new int[count];
+    byte[] type = new byte[count];
+    int[] column = new int[count];
+    byte[] rowTypes = new byte[rows.size()];
+    int index = 0;
+    for (int r = 0; r < rows.size(); r++) {
+      String row = rows.get(r);
+      int rowStart = index;
+      for (int c = 0; c < row.length(); c++) {
+        char symbol = row.charAt(c);
+        if (symbol == GAP) continue;
+        if (index == rowStart) {
+          rowTypes[r] = typeBySymbol[symbol];
+        }
+        x[index] = originX + c * spacingX;
+        y[index] = originY + r * spacingY;
+        type[index] = typeBySymbol[symbol];
+        column[index] = c;
+        index++;
+      }
+    }
+    rows.clear();
+    waves.add(new LevelTemplate(count, columns, x, y, type, column, originX, originY, spacingX, spacingY,
+        rowTypes, firstSpeed, speedStep, maxSpeed));
+  }
+
+  private void expect(String[] tokens, int length) {
+    if (tokens.length != length) {
+      throw error("Expected " + (length - 1) + " values after " + tokens[0]);
+    }
+  }
+
+  private int parseInt(String token) {
+    try {
+      return Integer.parseInt(token);
+    } catch (NumberFormatException e) {
+      throw error("Not an integer: " + token);
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException("Levels line " + lineNumber + ": " + message);
+  }
+}
@@ -0,0 +1,63 @@
+package com.spaceinvaders.level;
+
+// The waves a game plays through and the per-type invader stats, parsed once
+// and shared. Level n plays wave (n - 1) mod waves, so the waves cycle while
+// each wave's speed curve keeps rising with the level number.
+public final class LevelSet {
+  private final LevelTemplate[] waves;
+  private final int[] points;
+  private final double[] shootChances;
+  private final int maxCount;
+  // The text it was parsed from, so replays and snapshots can carry it
+  private final String source;
+
+  LevelSet(LevelTemplate[] waves, int[] points, double[] shootChances, String source) {
+    if (waves.length == 0) {
+      throw new IllegalArgumentException("No waves defined");
+    }
+    this.waves = waves;
+    this.points = points;
+    this.shootChances = shootChances;
+    this.source = source;
+    int max = 0;
+    for (LevelTemplate wave : waves) {
+      max = Math.max(max, wave.getCount());
+    }
+    this.maxCount = max;
+  }
+
+  // The original game: one 5x10 wave, two rows each of FAST, MEDIUM and BASIC
+  // from the top, speeding up by 1 px per base tick (see TickScale) each level up to 5
+  public static LevelSet classic() {
+    return Classic.LEVELS;
+  }
+
+  private static class Classic {
+    static final LevelSet LEVELS = LevelParser.parse("""
+        # type <char> <InvaderType> <points> <shootChance per base tick>
+        type B BASIC 10 0.001
+        type M MEDIUM 20 0.002
+        type F FAST 30 0.003
+        # speed <level 1 px per base tick> <added per level> <max>
+        speed 1 1 5
+        # wave [x y [spacingX spacingY]], then one grid row per line, '.' for a gap
+        wave 50 50 60 40
+        FFFFFFFFFF
+        FFFFFFFFFF
+        MMMMMMMMMM
+        MMMMMMMMMM
+        BBBBBBBBBB
+        """);
+  }
+
+  public LevelTemplate templateFor(int level) {
+    return waves[Math.floorMod(level - 1, waves.length)];
+  }
+
+  public int getPoints(int type) { return points[type]; }
+  public double getShootChance(int type) { return shootChances[type]; }
+  public int getWaveCount() { return waves.length; }
+  // The largest formation, so an engine can size its invader pool up front
+  public int getMaxCount() { return maxCount; }
+  public String getSource() { return source; }
+}
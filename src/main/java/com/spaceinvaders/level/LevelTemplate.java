@@ -0,0 +1,76 @@
+package com.spaceinvaders.level;
+
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Invader;
+
+// One wave compiled into the invader columns it spawns, top row first, so a
+// level starts with an array copy into the store. Immutable and shared by
+// every engine playing the same levels.
+public final class LevelTemplate {
+  private final int count;
+  private final int columns;
+  private final int[] x;
+  private final int[] y;
+  private final byte[] type;
+  private final int[] column;
+  private final int originX;
+  private final int originY;
+  private final int spacingX;
+  private final int spacingY;
+  // The first type on each grid row, for tile
+  private final byte[] rowTypes;
+  private final int firstSpeed;
+  private final int speedStep;
+  private final int maxSpeed;
+
+  LevelTemplate(int count, int columns, int[] x, int[] y, byte[] type, int[] column,
+                int originX, int originY, int spacingX, int spacingY, byte[] rowTypes,
+                int firstSpeed, int speedStep, int maxSpeed) {
+    this.count = count;
+    this.columns = columns;
+    this.x = x;
+    this.y = y;
+    this.type = type;
+    this.column = column;
+    this.originX = originX;
+    this.originY = originY;
+    this.spacingX = spacingX;
+    this.spacingY = spacingY;
+    this.rowTypes = rowTypes;
+    this.firstSpeed = firstSpeed;
+    this.speedStep = speedStep;
+    this.maxSpeed = maxSpeed;
+  }
+
+  // Fills the store with this wave's invaders, all moving at the level's speed
+  public void spawn(EntityStore<Invader> invaders, int level) {
+    invaders.load(count, x, y, type, Invader.WIDTH, Invader.HEIGHT, speedFor(level), 0);
+  }
+
+  // Invader speed in px per base tick on the given level (1-based)
+  public int speedFor(int level) {
+    return Math.min(maxSpeed, firstSpeed + speedStep * (level - 1));
+  }
+
+  // This wave's row pattern repeated downwards until it holds count invaders
+  // in rows of the given width, e.g. for a stress-test field
+  public LevelTemplate tile(int count, int columns) {
+    int[] tiledX = new int[count];
+    int[] tiledY = new int[count];
+    byte[] tiledType = new byte[count];
+    int[] tiledColumn = new int[count];
+    for (int i = 0; i < count; i++) {
+      int row = i / columns;
+      tiledColumn[i] = i % columns;
+      tiledX[i] = originX + tiledColumn[i] * spacingX;
+      tiledY[i] = originY + row * spacingY;
+      tiledType[i] = rowTypes[row % rowTypes.length];
+    }
+    return new LevelTemplate(count, columns, tiledX, tiledY, tiledType, tiledColumn,
+        originX, originY, spacingX, spacingY, rowTypes, firstSpeed, speedStep, maxSpeed);
+  }
+
+  public int getCount() { return count; }
+  public int getColumns() { return columns; }
+  public int getColumn(int index) { return column[index]; }
+}
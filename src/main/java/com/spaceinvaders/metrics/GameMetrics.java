@@ -0,0 +1,207 @@
+package com.spaceinvaders.metrics;
+
+import com.spaceinvaders.core.GameEventListener;
+import com.spaceinvaders.core.GameEvents;
+import com.spaceinvaders.enums.GameEventType;
+import com.spaceinvaders.enums.RenderLayer;
+import com.spaceinvaders.enums.TickPhase;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Per-phase tick and per-layer frame timings. The engine and renderer only
+// hold a reference while instrumentation is on; with none attached they take
+// their plain code paths. Timings go into scratch arrays owned by the
+// recording thread (the engine's own for tick phases) and are folded into the
+// histograms once per tick or frame, which is the only synchronized step.
+public class GameMetrics implements GameMetricsMXBean, GameEventListener {
+  public static final String OBJECT_NAME = "com.spaceinvaders:type=GameMetrics";
+  private static final TickPhase[] PHASES = TickPhase.values();
+  private static final RenderLayer[] LAYERS = RenderLayer.values();
+  private static final GameEventType[] EVENT_TYPES = GameEventType.values();
+  private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+  private final long[] layerNanos = new long[LAYERS.length];
+  private long tickAllocationStart;
+
+  private final Histogram[] phaseHistograms = new Histogram[PHASES.length];
+  private final Histogram[] layerHistograms = new Histogram[LAYERS.length];
+  private final Histogram tickHistogram = new Histogram();
+  private final Histogram frameHistogram = new Histogram();
+  private final Histogram allocatedBytes = new Histogram();
+  private final long[] lastPhaseNanos = new long[PHASES.length];
+  private final long[] lastLayerNanos = new long[LAYERS.length];
+  private long tickCount;
+  private long frameCount;
+  private long lastTickNanos;
+  private long lastFrameNanos;
+  private int invaderCount;
+  private int bulletCount;
+  private int powerUpCount;
+  private long collisionTests;
+  private final long[] batchEvents = new long[EVENT_TYPES.length];
+  private final long[] eventCounts = new long[EVENT_TYPES.length];
+
+  public GameMetrics() {
+    for (int i = 0; i < PHASES.length; i++) {
+      phaseHistograms[i] = new Histogram();
+    }
+    for (int i = 0; i < LAYERS.length; i++) {
+      layerHistograms[i] = new Histogram();
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads;
+      }
+    }
+    return null;
+  }
+
+  // Tick side, called on the thread running GameEngine.update
+  public long beginTick() {
+    tickAllocationStart = THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    return System.nanoTime();
+  }
+
+  public synchronized void endTick(long tickStart, long[] phaseNanos, int invaders, int bullets, int powerUps,
+                                   long collisionTests) {
+    lastTickNanos = System.nanoTime() - tickStart;
+    tickHistogram.record(lastTickNanos);
+    for (int i = 0; i < PHASES.length; i++) {
+      phaseHistograms[i].record(phaseNanos[i]);
+      lastPhaseNanos[i] = phaseNanos[i];
+    }
+    if (THREADS != null) {
+      allocatedBytes.record(Math.max(0, THREADS.getCurrentThreadAllocatedBytes() - tickAllocationStart));
+    }
+    invaderCount = invaders;
+    bulletCount = bullets;
+    powerUpCount = powerUps;
+    this.collisionTests = collisionTests;
+    tickCount++;
+  }
+
+  // Event side: counted per tick in scratch, folded in once per batch
+  @Override
+  public void onEvent(long event) {
+    batchEvents[GameEvents.typeOf(event).ordinal()]++;
+  }
+
+  @Override
+  public synchronized void endBatch() {
+    for (int i = 0; i < EVENT_TYPES.length; i++) {
+      eventCounts[i] += batchEvents[i];
+      batchEvents[i] = 0;
+    }
+  }
+
+  // Frame side, called on whichever thread draws
+  public long layer(RenderLayer layer, long since) {
+    long now = System.nanoTime();
+    layerNanos[layer.ordinal()] = now - since;
+    return now;
+  }
+
+  public synchronized void endFrame(long frameStart) {
+    lastFrameNanos = System.nanoTime() - frameStart;
+    frameHistogram.record(lastFrameNanos);
+    for (int i = 0; i < LAYERS.length; i++) {
+      layerHistograms[i].record(layerNanos[i]);
+      lastLayerNanos[i] = layerNanos[i];
+    }
+    frameCount++;
+  }
+
+  public ObjectName registerMBean() throws JMException {
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    return name;
+  }
+
+  @Override public synchronized long getTickCount() { return tickCount; }
+  @Override public synchronized long getFrameCount() { return frameCount; }
+  @Override public synchronized double getTickMeanMicros() { return tickHistogram.getMean() / 1000.0; }
+  @Override public synchronized double getTickP99Micros() { return tickHistogram.valueAtPercentile(99) / 1000.0; }
+  @Override public synchronized double getFrameP99Micros() { return frameHistogram.valueAtPercentile(99) / 1000.0; }
+  @Override public synchronized Map<String, Double> getTickPhaseP50Micros() { return percentiles(PHASES, phaseHistograms, 50); }
+  @Override public synchronized Map<String, Double> getTickPhaseP99Micros() { return percentiles(PHASES, phaseHistograms, 99); }
+  @Override public synchronized Map<String, Double> getRenderLayerP50Micros() { return percentiles(LAYERS, layerHistograms, 50); }
+  @Override public synchronized Map<String, Double> getRenderLayerP99Micros() { return percentiles(LAYERS, layerHistograms, 99); }
+  @Override public synchronized int getInvaderCount() { return invaderCount; }
+  @Override public synchronized int getBulletCount() { return bulletCount; }
+  @Override public synchronized int getPowerUpCount() { return powerUpCount; }
+  @Override public synchronized long getCollisionTestsPerTick() { return collisionTests; }
+  @Override public synchronized double getAllocatedBytesPerTick() { return allocatedBytes.getMean(); }
+  @Override public synchronized Map<String, Long> getEventCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (int i = 0; i < EVENT_TYPES.length; i++) {
+      counts.put(EVENT_TYPES[i].name(), eventCounts[i]);
+    }
+    return counts;
+  }
+
+  public synchronized long getLastTickNanos() { return lastTickNanos; }
+  public synchronized long getLastFrameNanos() { return lastFrameNanos; }
+  public synchronized long getLastPhaseNanos(TickPhase phase) { return lastPhaseNanos[phase.ordinal()]; }
+  public synchronized long getLastLayerNanos(RenderLayer layer) { return lastLayerNanos[layer.ordinal()]; }
+
+  private static Map<String, Double> percentiles(Enum<?>[] keys, Histogram[] histograms, double percentile) {
+    Map<String, Double> values = new LinkedHashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      values.put(keys[i].name(), histograms[i].valueAtPercentile(percentile) / 1000.0);
+    }
+    return values;
+  }
+
+  @Override
+  public synchronized void reset() {
+    for (Histogram histogram : phaseHistograms) {
+      histogram.reset();
+    }
+    for (Histogram histogram : layerHistograms) {
+      histogram.reset();
+    }
+    tickHistogram.reset();
+    frameHistogram.reset();
+    allocatedBytes.reset();
+    tickCount = 0;
+    frameCount = 0;
+    Arrays.fill(eventCounts, 0);
+  }
+
+  // One flat record, used by the periodic dump
+  public synchronized Map<String, Object> summary() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("ticks", tickCount);
+    values.put("frames", frameCount);
+    values.put("tick_mean_us", tickHistogram.getMean() / 1000.0);
+    values.put("tick_p99_us", tickHistogram.valueAtPercentile(99) / 1000.0);
+    for (int i = 0; i < PHASES.length; i++) {
+      values.put(PHASES[i].name().toLowerCase() + "_p50_us", phaseHistograms[i].valueAtPercentile(50) / 1000.0);
+      values.put(PHASES[i].name().toLowerCase() + "_p99_us", phaseHistograms[i].valueAtPercentile(99) / 1000.0);
+    }
+    values.put("frame_p99_us", frameHistogram.valueAtPercentile(99) / 1000.0);
+    for (int i = 0; i < LAYERS.length; i++) {
+      values.put("draw_" + LAYERS[i].name().toLowerCase() + "_p99_us", layerHistograms[i].valueAtPercentile(99) / 1000.0);
+    }
+    values.put("invaders", invaderCount);
+    values.put("bullets", bulletCount);
+    values.put("power_ups", powerUpCount);
+    values.put("collision_tests", collisionTests);
+    values.put("allocated_bytes_per_tick", allocatedBytes.getMean());
+    for (int i = 0; i < EVENT_TYPES.length; i++) {
+      values.put(EVENT_TYPES[i].name().toLowerCase(), eventCounts[i]);
+    }
+    return values;
+  }
+}
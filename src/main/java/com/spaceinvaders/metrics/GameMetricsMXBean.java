@@ -0,0 +1,22 @@
+package com.spaceinvaders.metrics;
+
+import java.util.Map;
+
+public interface GameMetricsMXBean {
+  long getTickCount();
+  long getFrameCount();
+  double getTickMeanMicros();
+  double getTickP99Micros();
+  double getFrameP99Micros();
+  Map<String, Double> getTickPhaseP50Micros();
+  Map<String, Double> getTickPhaseP99Micros();
+  Map<String, Double> getRenderLayerP50Micros();
+  Map<String, Double> getRenderLayerP99Micros();
+  int getInvaderCount();
+  int getBulletCount();
+  int getPowerUpCount();
+  long getCollisionTestsPerTick();
+  double getAllocatedBytesPerTick();
+  Map<String, Long> getEventCounts();
+  void reset();
+}
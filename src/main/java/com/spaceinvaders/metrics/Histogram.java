@@ -0,0 +1,112 @@
+package com.spaceinvaders.metrics;
+
+import java.util.Arrays;
+
+// Log-linear buckets in the style of HdrHistogram: values below 2^subBits are
+// exact, above that every power of two is split into 2^(subBits-1) buckets, so
+// the relative error stays under 2^(1-subBits) for any non-negative long.
+// Not thread-safe; record per thread and merge.
+public class Histogram {
+  private static final int DEFAULT_SUB_BITS = 5;
+
+  private final int subBits;
+  private final int subCount;
+  private final int halfCount;
+  private final long[] counts;
+  private long totalCount;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  public Histogram() {
+    this(DEFAULT_SUB_BITS);
+  }
+
+  public Histogram(int subBits) {
+    if (subBits < 1 || subBits > 16) {
+      throw new IllegalArgumentException("subBits must be between 1 and 16: " + subBits);
+    }
+    this.subBits = subBits;
+    this.subCount = 1 << subBits;
+    this.halfCount = subCount / 2;
+    int maxShift = 63 - (subBits - 1);
+    this.counts = new long[(maxShift + 2) * halfCount];
+  }
+
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative value: " + value);
+    }
+    counts[indexOf(value)]++;
+    totalCount++;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  private int indexOf(long value) {
+    if (value < subCount) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (subBits - 1);
+    return shift * halfCount + (int) (value >>> shift);
+  }
+
+  // Smallest value that falls into the bucket
+  public long bucketValue(int index) {
+    if (index < subCount) {
+      return index;
+    }
+    int shift = index / halfCount - 1;
+    return (long) (index - shift * halfCount) << shift;
+  }
+
+  public long valueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return Math.min(max, Math.max(min, bucketValue(i)));
+      }
+    }
+    return max;
+  }
+
+  public void merge(Histogram other) {
+    if (other.subBits != subBits) {
+      throw new IllegalArgumentException("Histograms have different precision");
+    }
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    sum = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  public int bucketCount() { return counts.length; }
+  public long countAt(int index) { return counts[index]; }
+  public long getTotalCount() { return totalCount; }
+  public long getMin() { return totalCount == 0 ? 0 : min; }
+  public long getMax() { return max; }
+  public double getMean() { return totalCount == 0 ? 0 : (double) sum / totalCount; }
+
+  @Override
+  public String toString() {
+    return String.format("n=%d min=%d p50=%d p90=%d p99=%d max=%d mean=%.1f", totalCount, getMin(),
+        valueAtPercentile(50), valueAtPercentile(90), valueAtPercentile(99), max, getMean());
+  }
+}
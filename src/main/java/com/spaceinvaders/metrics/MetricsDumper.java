@@ -0,0 +1,90 @@
+package com.spaceinvaders.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Appends a GameMetrics summary to a file at a fixed interval: a CSV row for
+// *.csv files, otherwise one JSON object per line
+public class MetricsDumper implements AutoCloseable {
+  private static final Logger LOGGER = Logger.getLogger(MetricsDumper.class.getName());
+
+  private final GameMetrics metrics;
+  private final Path path;
+  private final boolean csv;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "metrics-dump");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private boolean headerWritten;
+
+  public MetricsDumper(GameMetrics metrics, Path path) {
+    this.metrics = metrics;
+    this.path = path;
+    this.csv = path.getFileName().toString().endsWith(".csv");
+  }
+
+  public void start(long intervalSeconds) {
+    executor.scheduleAtFixedRate(this::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+  }
+
+  public void dump() {
+    Map<String, Object> summary = metrics.summary();
+    summary.put("timestamp", System.currentTimeMillis());
+    try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      if (csv) {
+        if (!headerWritten && Files.size(path) == 0) {
+          out.write(String.join(",", summary.keySet()));
+          out.write('\n');
+        }
+        headerWritten = true;
+        out.write(joinValues(summary));
+      } else {
+        out.write(toJson(summary));
+      }
+      out.write('\n');
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not write metrics to " + path, e);
+    }
+  }
+
+  private static String joinValues(Map<String, Object> summary) {
+    StringBuilder row = new StringBuilder();
+    for (Object value : summary.values()) {
+      if (row.length() > 0) {
+        row.append(',');
+      }
+      row.append(value);
+    }
+    return row.toString();
+  }
+
+  // Keys are fixed identifiers and values are numbers, so no escaping is needed
+  private static String toJson(Map<String, Object> summary) {
+    StringBuilder json = new StringBuilder("{");
+    for (Map.Entry<String, Object> entry : summary.entrySet()) {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+    }
+    return json.append('}').toString();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+    dump();
+  }
+}
@@ -0,0 +1,164 @@
+package com.spaceinvaders.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+// One connection to a GameServer, registered on a Selector the caller drives,
+// so a single thread can run many of them. Snapshots are applied to a mirror
+// WorldState and checked against the server's checksum.
+public class GameClient implements Closeable {
+  // Called for every snapshot, after the mirror has been updated
+  public interface Listener {
+    void onSnapshot(WorldState world, long ackedSequence);
+  }
+
+  // Length, type, a varlong sequence and the commands
+  private static final int MAX_INPUT_BYTES = Protocol.LENGTH_BYTES + 1 + 10 + 1;
+
+  private final SocketChannel channel;
+  private final SelectionKey key;
+  private final WorldState world = new WorldState();
+  private ByteBuffer in = ByteBuffer.allocate(4096);
+  private ByteBuffer out = ByteBuffer.allocate(256);
+  private boolean welcomed;
+  private int rejectReason;
+  private int playerIndex = -1;
+  private int ticksPerSecond;
+  private int screenWidth;
+  private int screenHeight;
+  private long inputSequence;
+  private long ackedSequence;
+  private long snapshots;
+  private long snapshotBytes;
+  private long mismatches;
+  private Listener listener;
+
+  private GameClient(SocketChannel channel, Selector selector) throws IOException {
+    this.channel = channel;
+    this.key = channel.register(selector, SelectionKey.OP_READ, this);
+  }
+
+  // Connects (blocking, which is immediate on loopback) and asks to join the session
+  public static GameClient connect(Selector selector, InetSocketAddress address, long sessionId)
+      throws IOException {
+    SocketChannel channel = SocketChannel.open(address);
+    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    channel.configureBlocking(false);
+    GameClient client = new GameClient(channel, selector);
+
+    int start = Protocol.beginMessage(client.out, Protocol.HELLO);
+    Protocol.putVarLong(client.out, sessionId);
+    Protocol.finishMessage(client.out, start);
+    client.flush();
+    return client;
+  }
+
+  // Sends the bit set of held InputCommand ordinals and returns its sequence
+  // number. The server queues inputs and applies one per tick, so one that
+  // cannot be written yet waits behind the earlier ones rather than being
+  // dropped; the buffer grows while the socket is backed up.
+  public long sendInput(int commands) throws IOException {
+    if (out.remaining() < MAX_INPUT_BYTES) {
+      out = ByteBuffer.allocate(out.capacity() * 2).put(out.flip());
+    }
+    int start = Protocol.beginMessage(out, Protocol.INPUT);
+    Protocol.putVarLong(out, ++inputSequence);
+    out.put((byte) commands);
+    Protocol.finishMessage(out, start);
+    flush();
+    return inputSequence;
+  }
+
+  // Call when the selector reports the key ready
+  public void handle(SelectionKey selected) throws IOException {
+    if (selected.isReadable()) {
+      read();
+    }
+    if (selected.isValid() && selected.isWritable()) {
+      flush();
+    }
+  }
+
+  private void read() throws IOException {
+    if (channel.read(in) < 0) {
+      throw new IOException("Server closed the connection");
+    }
+
+    in.flip();
+    int length;
+    while ((length = Protocol.nextMessage(in)) >= 0) {
+      int end = in.position() + Protocol.LENGTH_BYTES + length;
+      in.position(in.position() + Protocol.LENGTH_BYTES);
+      handleMessage(in.get(), in, length + Protocol.LENGTH_BYTES);
+      in.position(end);
+    }
+    if (in.remaining() >= Protocol.LENGTH_BYTES && in.getInt(in.position()) + Protocol.LENGTH_BYTES > in.capacity()) {
+      in = ByteBuffer.allocate(in.getInt(in.position()) + Protocol.LENGTH_BYTES).put(in);
+    } else {
+      in.compact();
+    }
+  }
+
+  private void handleMessage(byte type, ByteBuffer message, int size) {
+    switch (type) {
+      case Protocol.WELCOME -> {
+        playerIndex = Protocol.getVarInt(message);
+        ticksPerSecond = Protocol.getVarInt(message);
+        screenWidth = Protocol.getVarInt(message);
+        screenHeight = Protocol.getVarInt(message);
+        welcomed = true;
+      }
+      case Protocol.REJECT -> rejectReason = Protocol.getVarInt(message);
+      case Protocol.SNAPSHOT -> {
+        ackedSequence = Protocol.getVarLong(message);
+        long checksum = message.getLong();
+        world.readDelta(message);
+        if (world.checksum() != checksum) {
+          mismatches++;
+        }
+        snapshots++;
+        snapshotBytes += size;
+        if (listener != null) {
+          listener.onSnapshot(world, ackedSequence);
+        }
+      }
+      default -> throw new IllegalStateException("Unexpected message " + type);
+    }
+  }
+
+  private void flush() throws IOException {
+    out.flip();
+    channel.write(out);
+    out.compact();
+    key.interestOps(out.position() > 0
+        ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+        : SelectionKey.OP_READ);
+  }
+
+  @Override
+  public void close() throws IOException {
+    key.cancel();
+    channel.close();
+  }
+
+  public void setListener(Listener listener) { this.listener = listener; }
+  public WorldState getWorld() { return world; }
+  public boolean isWelcomed() { return welcomed; }
+  public boolean isRejected() { return rejectReason != 0; }
+  public int getRejectReason() { return rejectReason; }
+  public int getPlayerIndex() { return playerIndex; }
+  public int getTicksPerSecond() { return ticksPerSecond; }
+  public int getScreenWidth() { return screenWidth; }
+  public int getScreenHeight() { return screenHeight; }
+  public long getInputSequence() { return inputSequence; }
+  public long getAckedSequence() { return ackedSequence; }
+  public long getSnapshots() { return snapshots; }
+  public long getSnapshotBytes() { return snapshotBytes; }
+  public long getMismatches() { return mismatches; }
+}
@@ -0,0 +1,401 @@
+package com.spaceinvaders.net;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.TickClock;
+import com.spaceinvaders.metrics.Histogram;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Authoritative server: every session is its own GameEngine with up to
+// GameEngine.MAX_PLAYERS players, and all sessions tick on one thread driven
+// by a Selector. Clients send the commands they hold, one input per client tick,
+// and each server tick applies the oldest queued input (or keeps the last one
+// held when none arrived). After each tick every client gets its session's
+// state as a delta against the last snapshot it was sent, along with the
+// sequence of the input applied last, which a predicting client replays from.
+// A client whose previous snapshot is still unsent is skipped for that tick,
+// and its next delta covers both, so a slow client costs bandwidth rather than
+// buffered snapshots.
+// It does not host its sessions on a SessionManager, which plays a session's
+// ticks on pool threads in batches, drops ticks under load and reads only the
+// commands held last. Predicting clients need each acknowledged input applied
+// on exactly one tick, followed by that tick's snapshot on the sockets this
+// thread owns, so ticks, input and writes stay on the selector thread. That
+// caps a server at what one thread can tick; it bounds its load with
+// maxSessions and the catch-up limit, and more players means more servers.
+// Usage: GameServer [port] [ticksPerSecond] [maxSessions]
+public class GameServer implements Runnable, Closeable {
+  private static final Logger LOGGER = Logger.getLogger(GameServer.class.getName());
+
+  public static final int DEFAULT_MAX_SESSIONS = 1024;
+  private static final int INITIAL_OUT_BUFFER = 4096;
+  // Inputs that arrived faster than ticks; past this the oldest are dropped
+  private static final int INPUT_QUEUE = 8;
+  // Behind by more than this and the loop drops ticks instead of catching up
+  private static final int MAX_CATCH_UP_TICKS = 5;
+
+  private final Selector selector;
+  private final ServerSocketChannel serverChannel;
+  private final int ticksPerSecond;
+  private final int maxSessions;
+  private final Map<Long, Session> sessions = new HashMap<>();
+  private final List<Session> emptied = new ArrayList<>();
+  private final Histogram tickNanos = new Histogram();
+  private volatile boolean running = true;
+  private long ticks;
+  private long snapshotsSent;
+  private long snapshotsSkipped;
+  private long snapshotBytes;
+
+  public GameServer(int port, int ticksPerSecond, int maxSessions) throws IOException {
+    this.ticksPerSecond = ticksPerSecond;
+    this.maxSessions = maxSessions;
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(port), 1024);
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  @Override
+  public void run() {
+    long period = 1_000_000_000L / ticksPerSecond;
+    long nextTick = System.nanoTime() + period;
+    try {
+      while (running) {
+        long wait = nextTick - System.nanoTime();
+        if (wait > 0) {
+          selector.select(Math.max(1, wait / 1_000_000));
+        } else {
+          selector.selectNow();
+        }
+        handleSelected();
+
+        long now = System.nanoTime();
+        if (now - nextTick > MAX_CATCH_UP_TICKS * period) {
+          nextTick = now;
+        }
+        while (running && now >= nextTick) {
+          tick();
+          nextTick += period;
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Server loop failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key.channel());
+      }
+      closeQuietly(selector);
+    }
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    selector.wakeup();
+  }
+
+  private void handleSelected() throws IOException {
+    Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+    while (selected.hasNext()) {
+      SelectionKey key = selected.next();
+      selected.remove();
+      if (!key.isValid()) continue;
+
+      if (key.isAcceptable()) {
+        accept();
+        continue;
+      }
+      Connection connection = (Connection) key.attachment();
+      try {
+        if (key.isReadable()) {
+          read(connection);
+        }
+        if (key.isValid() && key.isWritable()) {
+          flush(connection);
+        }
+      } catch (IOException | RuntimeException e) {
+        LOGGER.log(Level.FINE, "Dropping client", e);
+        disconnect(connection);
+      }
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = serverChannel.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      Connection connection = new Connection(channel);
+      connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+  }
+
+  private void read(Connection connection) throws IOException {
+    if (connection.channel.read(connection.in) < 0) {
+      disconnect(connection);
+      return;
+    }
+
+    ByteBuffer in = connection.in;
+    in.flip();
+    int length;
+    while (connection.key.isValid() && (length = Protocol.nextMessage(in)) >= 0) {
+      int end = in.position() + Protocol.LENGTH_BYTES + length;
+      in.position(in.position() + Protocol.LENGTH_BYTES);
+      handleMessage(connection, in.get(), in);
+      in.position(end);
+    }
+    if (in.remaining() >= Protocol.LENGTH_BYTES && in.getInt(in.position()) + Protocol.LENGTH_BYTES > in.capacity()) {
+      connection.in = ByteBuffer.allocate(in.getInt(in.position()) + Protocol.LENGTH_BYTES).put(in);
+    } else {
+      in.compact();
+    }
+  }
+
+  private void handleMessage(Connection connection, byte type, ByteBuffer in) throws IOException {
+    switch (type) {
+      case Protocol.HELLO -> join(connection, Protocol.getVarLong(in));
+      case Protocol.INPUT -> connection.queueInput(Protocol.getVarLong(in), in.get());
+      default -> throw new IllegalStateException("Unexpected message " + type);
+    }
+  }
+
+  private void join(Connection connection, long sessionId) throws IOException {
+    if (connection.session != null) {
+      throw new IllegalStateException("Already in session " + connection.session.id);
+    }
+
+    Session session = sessions.get(sessionId);
+    if (session == null) {
+      if (sessions.size() >= maxSessions) {
+        reject(connection, Protocol.REJECT_SERVER_FULL);
+        return;
+      }
+      session = new Session(sessionId, ticksPerSecond);
+      sessions.put(sessionId, session);
+    }
+
+    int seat = session.freeSeat();
+    if (seat < 0) {
+      reject(connection, Protocol.REJECT_SESSION_FULL);
+      return;
+    }
+    while (session.engine.getPlayerCount() <= seat) {
+      session.engine.addPlayer();
+    }
+    session.seats[seat] = connection;
+    session.clientCount++;
+    connection.session = session;
+    connection.seat = seat;
+
+    ByteBuffer out = connection.out;
+    int start = Protocol.beginMessage(out, Protocol.WELCOME);
+    Protocol.putVarInt(out, seat);
+    Protocol.putVarInt(out, ticksPerSecond);
+    Protocol.putVarInt(out, session.engine.getScreenWidth());
+    Protocol.putVarInt(out, session.engine.getScreenHeight());
+    Protocol.finishMessage(out, start);
+    flush(connection);
+  }
+
+  private void reject(Connection connection, int reason) throws IOException {
+    ByteBuffer out = connection.out;
+    int start = Protocol.beginMessage(out, Protocol.REJECT);
+    Protocol.putVarInt(out, reason);
+    Protocol.finishMessage(out, start);
+    flush(connection);
+  }
+
+  private void tick() {
+    long start = System.nanoTime();
+    for (Session session : sessions.values()) {
+      for (int seat = 0; seat < GameEngine.MAX_PLAYERS; seat++) {
+        Connection connection = session.seats[seat];
+        if (connection != null) {
+          connection.nextInput();
+          session.engine.applyCommands(seat, connection.commands);
+        }
+      }
+      session.engine.update();
+      session.state.capture(session.engine);
+
+      for (int seat = 0; seat < GameEngine.MAX_PLAYERS; seat++) {
+        Connection connection = session.seats[seat];
+        if (connection != null) {
+          sendSnapshot(connection, session.state);
+        }
+      }
+      if (session.clientCount == 0) {
+        emptied.add(session);
+      }
+    }
+    for (Session session : emptied) {
+      sessions.remove(session.id);
+    }
+    emptied.clear();
+    ticks++;
+    tickNanos.record(System.nanoTime() - start);
+  }
+
+  private void sendSnapshot(Connection connection, WorldState state) {
+    if (connection.out.position() > 0) {
+      snapshotsSkipped++;
+      return;
+    }
+
+    while (true) {
+      ByteBuffer out = connection.out;
+      try {
+        int start = Protocol.beginMessage(out, Protocol.SNAPSHOT);
+        Protocol.putVarLong(out, connection.inputSequence);
+        out.putLong(state.checksum());
+        state.writeDelta(connection.baseline, out);
+        Protocol.finishMessage(out, start);
+        break;
+      } catch (BufferOverflowException e) {
+        connection.out = ByteBuffer.allocate(out.capacity() * 2);
+      }
+    }
+    connection.baseline.copyFrom(state);
+    snapshotsSent++;
+    snapshotBytes += connection.out.position();
+
+    try {
+      flush(connection);
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Dropping client", e);
+      disconnect(connection);
+    }
+  }
+
+  // Writes what the socket takes and asks for OP_WRITE while anything is left
+  private void flush(Connection connection) throws IOException {
+    ByteBuffer out = connection.out;
+    out.flip();
+    connection.channel.write(out);
+    out.compact();
+    if (connection.key.isValid()) {
+      connection.key.interestOps(out.position() > 0
+          ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+          : SelectionKey.OP_READ);
+    }
+  }
+
+  private void disconnect(Connection connection) {
+    connection.key.cancel();
+    closeQuietly(connection.channel);
+    Session session = connection.session;
+    if (session != null && session.seats[connection.seat] == connection) {
+      session.seats[connection.seat] = null;
+      session.clientCount--;
+      connection.session = null;
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Close failed", e);
+    }
+  }
+
+  public int getPort() { return serverChannel.socket().getLocalPort(); }
+  public int getTicksPerSecond() { return ticksPerSecond; }
+  // Read these after run() has returned, or accept slightly stale values
+  public int getSessionCount() { return sessions.size(); }
+  public long getTicks() { return ticks; }
+  public long getSnapshotsSent() { return snapshotsSent; }
+  public long getSnapshotsSkipped() { return snapshotsSkipped; }
+  public long getSnapshotBytes() { return snapshotBytes; }
+  public Histogram getTickNanos() { return tickNanos; }
+
+  private static class Session {
+    final long id;
+    final GameEngine engine;
+    final WorldState state = new WorldState();
+    // Indexed by player, so a seat keeps its player when others leave
+    final Connection[] seats = new Connection[GameEngine.MAX_PLAYERS];
+    int clientCount;
+
+    Session(long id, int ticksPerSecond) {
+      this.id = id;
+      this.engine = new GameEngine(new GameManager(), new TickClock(ticksPerSecond), id,
+          GameEngine.SCREEN_WIDTH, GameEngine.SCREEN_HEIGHT);
+    }
+
+    int freeSeat() {
+      for (int seat = 0; seat < GameEngine.MAX_PLAYERS; seat++) {
+        if (seats[seat] == null) return seat;
+      }
+      return -1;
+    }
+  }
+
+  private static class Connection {
+    final SocketChannel channel;
+    final WorldState baseline = new WorldState();
+    SelectionKey key;
+    ByteBuffer in = ByteBuffer.allocate(64);
+    ByteBuffer out = ByteBuffer.allocate(INITIAL_OUT_BUFFER);
+    Session session;
+    int seat;
+    final long[] inputs = new long[INPUT_QUEUE];
+    int inputHead;
+    int inputCount;
+    int commands;
+    long inputSequence;
+
+    Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    void queueInput(long sequence, byte commands) {
+      if (inputCount == INPUT_QUEUE) {
+        inputHead = (inputHead + 1) % INPUT_QUEUE;
+        inputCount--;
+      }
+      inputs[(inputHead + inputCount++) % INPUT_QUEUE] = sequence << 8 | commands & 0xFF;
+    }
+
+    void nextInput() {
+      if (inputCount > 0) {
+        long input = inputs[inputHead];
+        inputHead = (inputHead + 1) % INPUT_QUEUE;
+        inputCount--;
+        inputSequence = input >>> 8;
+        commands = (int) input & 0xFF;
+      }
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.PORT;
+    int ticksPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : GameLoop.DEFAULT_TICK_RATE;
+    int maxSessions = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_SESSIONS;
+
+    GameServer server = new GameServer(port, ticksPerSecond, maxSessions);
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    System.out.println("Listening on port " + server.getPort() + " at " + ticksPerSecond + " ticks/s");
+    server.run();
+  }
+}
@@ -0,0 +1,205 @@
+package com.spaceinvaders.net;
+
+import com.spaceinvaders.core.GameRandom;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// A loopback relay that delays everything passing through it by a fixed
+// latency plus up to jitter milliseconds, each way. Bytes stay in order, as
+// TCP keeps them, so a late chunk holds back the ones behind it. A lost
+// segment is modelled the way TCP shows it to the application: it arrives a
+// retransmission timeout late, and so does everything queued behind it.
+class LagProxy implements Runnable, Closeable {
+  private static final Logger LOGGER = Logger.getLogger(LagProxy.class.getName());
+
+  // Linux never retransmits sooner than this
+  private static final long MIN_RETRANSMIT_MILLIS = 200;
+
+  private final Selector selector;
+  private final ServerSocketChannel serverChannel;
+  private final InetSocketAddress target;
+  private final long latencyNanos;
+  private final long jitterNanos;
+  private final double loss;
+  private final long retransmitNanos;
+  private final GameRandom random;
+  private final List<Link> links = new ArrayList<>();
+  private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+  private volatile boolean running = true;
+
+  LagProxy(InetSocketAddress target, int latencyMillis, int jitterMillis, double loss, long seed)
+      throws IOException {
+    this.target = target;
+    this.latencyNanos = latencyMillis * 1_000_000L;
+    this.jitterNanos = jitterMillis * 1_000_000L;
+    this.loss = loss;
+    this.retransmitNanos = (MIN_RETRANSMIT_MILLIS + 2L * latencyMillis) * 1_000_000L;
+    this.random = new GameRandom(seed);
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (running) {
+        long wait = Long.MAX_VALUE;
+        long now = System.nanoTime();
+        for (Link link : links) {
+          if (!link.queue.isEmpty()) {
+            wait = Math.min(wait, link.queue.peek().due - now);
+          }
+        }
+        if (wait == Long.MAX_VALUE) {
+          selector.select();
+        } else if (wait > 1_000_000) {
+          selector.select(wait / 1_000_000);
+        } else {
+          selector.selectNow();
+        }
+
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while (selected.hasNext()) {
+          SelectionKey key = selected.next();
+          selected.remove();
+          if (!key.isValid()) continue;
+          if (key.isAcceptable()) {
+            accept();
+          } else if (key.isReadable()) {
+            read((Link) key.attachment());
+          }
+        }
+        deliver();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Proxy failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key.channel());
+      }
+      closeQuietly(selector);
+    }
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    selector.wakeup();
+  }
+
+  private void accept() throws IOException {
+    SocketChannel client;
+    while ((client = serverChannel.accept()) != null) {
+      SocketChannel server = SocketChannel.open(target);
+      client.configureBlocking(false);
+      server.configureBlocking(false);
+      Link up = new Link(client, server);
+      Link down = new Link(server, client);
+      up.reverse = down;
+      down.reverse = up;
+      client.register(selector, SelectionKey.OP_READ, up);
+      server.register(selector, SelectionKey.OP_READ, down);
+      links.add(up);
+      links.add(down);
+    }
+  }
+
+  private void read(Link link) throws IOException {
+    buffer.clear();
+    int read = link.source.read(buffer);
+    if (read < 0) {
+      drop(link);
+      return;
+    }
+
+    long now = System.nanoTime();
+    long due = now + latencyNanos + (long) (random.nextDouble() * jitterNanos);
+    if (random.nextDouble() < loss) {
+      due += retransmitNanos;
+    }
+    link.lastDue = Math.max(link.lastDue, due);
+    buffer.flip();
+    ByteBuffer chunk = ByteBuffer.allocate(buffer.remaining()).put(buffer);
+    chunk.flip();
+    link.queue.add(new Chunk(link.lastDue, chunk));
+  }
+
+  // Hands over everything that is due; the sockets are loopback, so a write
+  // that does not finish is just retried on the next pass
+  private void deliver() {
+    long now = System.nanoTime();
+    for (int i = links.size() - 1; i >= 0; i--) {
+      Link link = links.get(i);
+      Chunk chunk;
+      try {
+        while ((chunk = link.queue.peek()) != null && chunk.due <= now) {
+          link.sink.write(chunk.data);
+          if (chunk.data.hasRemaining()) {
+            break;
+          }
+          link.queue.poll();
+        }
+      } catch (IOException e) {
+        drop(link);
+        i = Math.min(i, links.size());
+      }
+    }
+  }
+
+  // Either side going away ends both directions
+  private void drop(Link link) {
+    closeQuietly(link.source);
+    closeQuietly(link.sink);
+    links.remove(link);
+    links.remove(link.reverse);
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Close failed", e);
+    }
+  }
+
+  int getPort() { return serverChannel.socket().getLocalPort(); }
+
+  private static class Link {
+    final SocketChannel source;
+    final SocketChannel sink;
+    final ArrayDeque<Chunk> queue = new ArrayDeque<>();
+    Link reverse;
+    long lastDue;
+
+    Link(SocketChannel source, SocketChannel sink) {
+      this.source = source;
+      this.sink = sink;
+    }
+  }
+
+  private static class Chunk {
+    final long due;
+    final ByteBuffer data;
+
+    Chunk(long due, ByteBuffer data) {
+      this.due = due;
+      this.data = data;
+    }
+  }
+}
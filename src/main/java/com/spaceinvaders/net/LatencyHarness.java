@@ -0,0 +1,184 @@
+package com.spaceinvaders.net;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameRandom;
+import com.spaceinvaders.enums.InputCommand;
+import com.spaceinvaders.metrics.Histogram;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.locks.LockSupport;
+
+// Measures perceived input latency over a lagging loopback link: a GameServer
+// behind a LagProxy, and headless RemoteGames whose bots keep switching
+// direction. Latency is the time from a key press to the first tick whose view
+// shows the ship moving that way. Half the clients predict and half draw
+// their ship from snapshots, each in its own session.
+// LatencyTest runs a short fixed-seed version and asserts on it.
+// Usage: LatencyHarness [clients] [latencyMs] [jitterMs] [lossPercent] [seconds] [ticksPerSecond] [interpolationTicks]
+public class LatencyHarness {
+  private static final int MIN_HOLD_TICKS = 30;
+  private static final int MAX_HOLD_TICKS = 90;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    int latency = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    int jitter = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    double loss = args.length > 3 ? Double.parseDouble(args[3]) / 100 : 0.01;
+    int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+    int ticksPerSecond = args.length > 5 ? Integer.parseInt(args[5]) : GameLoop.DEFAULT_TICK_RATE;
+    int interpolationTicks = args.length > 6 ? Integer.parseInt(args[6]) : RemoteGame.DEFAULT_INTERPOLATION_TICKS;
+
+    GameServer server = new GameServer(0, ticksPerSecond, clientCount);
+    Thread serverThread = new Thread(server, "game-server");
+    serverThread.start();
+    LagProxy proxy = new LagProxy(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()),
+        latency, jitter, loss, 42);
+    Thread proxyThread = new Thread(proxy, "lag-proxy");
+    proxyThread.start();
+
+    InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), proxy.getPort());
+    Bot[] bots = new Bot[clientCount];
+    for (int i = 0; i < clientCount; i++) {
+      RemoteGame game = RemoteGame.connect(address, i, interpolationTicks);
+      game.setPrediction(i % 2 == 0);
+      bots[i] = new Bot(game, i);
+    }
+
+    Histogram predicted = new Histogram();
+    Histogram unpredicted = new Histogram();
+    long period = 1_000_000_000L / ticksPerSecond;
+    long ticks = (long) seconds * ticksPerSecond;
+    long next = System.nanoTime();
+    for (long tick = 0; tick < ticks; tick++) {
+      for (Bot bot : bots) {
+        bot.press();
+        bot.game.tick();
+        bot.observe(bot.game.isPrediction() ? predicted : unpredicted);
+      }
+      next += period;
+      LockSupport.parkNanos(next - System.nanoTime());
+    }
+
+    server.close();
+    proxy.close();
+    serverThread.join();
+    proxyThread.join();
+
+    long corrections = 0;
+    long correctionPixels = 0;
+    long mismatches = 0;
+    long snapshots = 0;
+    int disconnected = 0;
+    int timeouts = 0;
+    for (Bot bot : bots) {
+      RemoteGame game = bot.game;
+      corrections += game.getCorrections();
+      correctionPixels += game.getCorrectionPixels();
+      mismatches += game.getClient().getMismatches();
+      snapshots += game.getClient().getSnapshots();
+      timeouts += bot.timeouts;
+      if (game.isDisconnected()) disconnected++;
+      game.close();
+    }
+
+    double tickMillis = 1000.0 / ticksPerSecond;
+    System.out.printf("Link: %d ms each way, up to %d ms jitter, %.1f%% loss; %d clients at %d ticks/s,"
+        + " interpolating %d ticks behind%n", latency, jitter, loss * 100, clientCount, ticksPerSecond,
+        interpolationTicks);
+    report("Predicted", predicted, tickMillis);
+    report("Unpredicted", unpredicted, tickMillis);
+    System.out.printf("Reconciliation: %d corrections, %.1f px on average%n",
+        corrections, corrections == 0 ? 0.0 : (double) correctionPixels / corrections);
+    System.out.printf("Snapshots: %d received, %d checksum mismatches; %d presses timed out, %d clients lost%n",
+        snapshots, mismatches, timeouts, disconnected);
+
+    if (mismatches > 0 || disconnected > 0) {
+      System.exit(1);
+    }
+  }
+
+  // Latency in ticks; a press is seen, at the earliest, on the tick that sends it
+  private static void report(String label, Histogram ticks, double tickMillis) {
+    System.out.printf("%-12s %5d presses: mean %6.1f ms, p50 %6.1f ms, p99 %6.1f ms, max %6.1f ms%n",
+        label, ticks.getTotalCount(), ticks.getMean() * tickMillis,
+        ticks.valueAtPercentile(50) * tickMillis, ticks.valueAtPercentile(99) * tickMillis,
+        ticks.getMax() * tickMillis);
+  }
+
+  // Also drives LatencyTest
+  static class Bot {
+    // Presses still unanswered after this long are counted as timeouts
+    private static final int TIMEOUT_TICKS = 120;
+
+    final RemoteGame game;
+    final GameRandom random;
+    InputCommand direction;
+    int holdTicks;
+    long pressedAt = -1;
+    int lastX;
+    int timeouts;
+
+    Bot(RemoteGame game, long seed) {
+      this.game = game;
+      this.random = new GameRandom(seed);
+    }
+
+    void press() {
+      GameEngine view = game.getView();
+      if (!view.getGameManager().isGameRunning()) {
+        view.submitInput(InputCommand.RESTART, true);
+        view.submitInput(InputCommand.RESTART, false);
+        pressedAt = -1;
+        return;
+      }
+      if (random.nextInt(20) == 0) {
+        boolean shooting = random.nextInt(2) == 0;
+        view.submitInput(InputCommand.SHOOT, shooting);
+      }
+      if (--holdTicks > 0) {
+        return;
+      }
+
+      // Away from the nearer wall, so the ship is always free to move
+      int x = localX();
+      InputCommand next = x < view.getScreenWidth() / 2 ? InputCommand.RIGHT : InputCommand.LEFT;
+      holdTicks = MIN_HOLD_TICKS + random.nextInt(MAX_HOLD_TICKS - MIN_HOLD_TICKS);
+      if (next == direction) {
+        return;
+      }
+      if (direction != null) {
+        view.submitInput(direction, false);
+      }
+      view.submitInput(next, true);
+      direction = next;
+      pressedAt = game.getLocalTick();
+      lastX = x;
+    }
+
+    void observe(Histogram latency) {
+      int x = localX();
+      if (pressedAt >= 0) {
+        int step = x - lastX;
+        long ticks = game.getLocalTick() - 1 - pressedAt;
+        if (direction == InputCommand.RIGHT ? step > 0 : step < 0) {
+          latency.record(ticks);
+          pressedAt = -1;
+        } else if (ticks > TIMEOUT_TICKS) {
+          timeouts++;
+          pressedAt = -1;
+        }
+      }
+      lastX = x;
+    }
+
+    private int localX() {
+      GameEngine view = game.getView();
+      synchronized (view) {
+        int index = game.getPlayerIndex();
+        return index < view.getPlayers().size() ? view.getPlayers().getX(index) : 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.spaceinvaders.net;
+
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameRandom;
+import com.spaceinvaders.enums.InputCommand;
+import com.spaceinvaders.metrics.Histogram;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Runs a GameServer and a crowd of GameClients in one process over loopback.
+// Every client holds random keys, changed every eight ticks or so, and checks
+// each snapshot against the server's checksum. Fails if any client was turned
+// away, lost its connection or ended up with a mirror that differs.
+// LoopbackTest checks the same on a few sessions; this is the load version.
+// Usage: LoopbackHarness [sessions] [playersPerSession] [seconds] [ticksPerSecond]
+public class LoopbackHarness {
+  private static final int SHOOT = 1 << InputCommand.SHOOT.ordinal();
+  private static final int RESTART = 1 << InputCommand.RESTART.ordinal();
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    int playersPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+    int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    int ticksPerSecond = args.length > 3 ? Integer.parseInt(args[3]) : GameLoop.DEFAULT_TICK_RATE;
+
+    GameServer server = new GameServer(0, ticksPerSecond, sessionCount);
+    Thread serverThread = new Thread(server, "game-server");
+    serverThread.start();
+
+    InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    Selector selector = Selector.open();
+    List<GameClient> clients = new ArrayList<>();
+    for (int session = 0; session < sessionCount; session++) {
+      for (int p = 0; p < playersPerSession; p++) {
+        clients.add(GameClient.connect(selector, address, session));
+      }
+    }
+
+    GameRandom random = new GameRandom(42);
+    int failed = 0;
+    long period = 1_000_000_000L / ticksPerSecond;
+    long end = System.nanoTime() + seconds * 1_000_000_000L;
+    long nextInput = System.nanoTime();
+    while (System.nanoTime() < end) {
+      long wait = nextInput - System.nanoTime();
+      if (wait > 0) {
+        selector.select(Math.max(1, wait / 1_000_000));
+      } else {
+        selector.selectNow();
+      }
+
+      Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+      while (selected.hasNext()) {
+        SelectionKey key = selected.next();
+        selected.remove();
+        GameClient client = (GameClient) key.attachment();
+        try {
+          client.handle(key);
+        } catch (IOException e) {
+          System.out.println("Client " + clients.indexOf(client) + " failed: " + e.getMessage());
+          client.close();
+          failed++;
+        }
+      }
+
+      if (System.nanoTime() >= nextInput) {
+        for (GameClient client : clients) {
+          if (client.isWelcomed() && random.nextInt(8) == 0) {
+            int commands = 1 << (InputCommand.LEFT.ordinal() + random.nextInt(2))
+                | (random.nextInt(2) == 0 ? SHOOT : 0);
+            if (!client.getWorld().isGameRunning()) {
+              commands |= RESTART;
+            }
+            client.sendInput(commands);
+          }
+        }
+        nextInput += period;
+      }
+    }
+
+    server.close();
+    serverThread.join();
+
+    int welcomed = 0;
+    int rejected = 0;
+    long snapshots = 0;
+    long snapshotBytes = 0;
+    long mismatches = 0;
+    long fullBytes = 0;
+    ByteBuffer full = ByteBuffer.allocate(1 << 20);
+    for (GameClient client : clients) {
+      if (client.isWelcomed()) welcomed++;
+      if (client.isRejected()) rejected++;
+      snapshots += client.getSnapshots();
+      snapshotBytes += client.getSnapshotBytes();
+      mismatches += client.getMismatches();
+      full.clear();
+      client.getWorld().writeDelta(new WorldState(), full);
+      fullBytes += full.position();
+      client.close();
+    }
+    selector.close();
+
+    Histogram tickNanos = server.getTickNanos();
+    System.out.printf("Sessions: %d, clients: %d welcomed, %d rejected, %d failed%n",
+        sessionCount, welcomed, rejected, failed);
+    System.out.printf("Server ticks: %d of %d, mean %.1f us, p99 %.1f us, max %.1f us%n",
+        server.getTicks(), (long) seconds * ticksPerSecond, tickNanos.getMean() / 1000.0,
+        tickNanos.valueAtPercentile(99) / 1000.0, tickNanos.getMax() / 1000.0);
+    System.out.printf("Snapshots: %d sent, %d skipped for backpressure, %d received%n",
+        server.getSnapshotsSent(), server.getSnapshotsSkipped(), snapshots);
+    System.out.printf("Snapshot size: %.1f bytes on average, full state %.1f bytes%n",
+        snapshots == 0 ? 0.0 : (double) snapshotBytes / snapshots, (double) fullBytes / clients.size());
+    System.out.println("Checksum mismatches: " + mismatches);
+
+    if (welcomed != clients.size() || failed > 0 || mismatches > 0) {
+      System.exit(1);
+    }
+  }
+}
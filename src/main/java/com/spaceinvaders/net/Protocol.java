@@ -0,0 +1,93 @@
+package com.spaceinvaders.net;
+
+import java.nio.ByteBuffer;
+
+// Wire format shared by GameServer and GameClient. Every message is a 4-byte
+// big-endian length followed by that many bytes, the first being the type.
+//
+//   HELLO     client -> server  session id (varint)
+//   WELCOME   server -> client  player index, ticks per second, screen width, height (varints)
+//   REJECT    server -> client  reason (varint, see REJECT_*)
+//   INPUT     client -> server  input sequence (varint), held InputCommand bits (byte)
+//   SNAPSHOT  server -> client  sequence of the input applied last (varint),
+//                               checksum (long), WorldState delta, see WorldState.writeDelta
+public final class Protocol {
+  public static final int PORT = 7777;
+
+  public static final byte HELLO = 1;
+  public static final byte WELCOME = 2;
+  public static final byte REJECT = 3;
+  public static final byte INPUT = 4;
+  public static final byte SNAPSHOT = 5;
+
+  public static final int REJECT_SESSION_FULL = 1;
+  public static final int REJECT_SERVER_FULL = 2;
+
+  static final int LENGTH_BYTES = 4;
+  static final int MAX_MESSAGE = 1 << 20;
+
+  private Protocol() {
+  }
+
+  // Starts a message; finishMessage fills in the length once the body is written
+  static int beginMessage(ByteBuffer out, byte type) {
+    int start = out.position();
+    out.putInt(0);
+    out.put(type);
+    return start;
+  }
+
+  static void finishMessage(ByteBuffer out, int start) {
+    out.putInt(start, out.position() - start - LENGTH_BYTES);
+  }
+
+  // Length of the next complete message at the buffer's position, or -1
+  static int nextMessage(ByteBuffer in) {
+    if (in.remaining() < LENGTH_BYTES) {
+      return -1;
+    }
+    int length = in.getInt(in.position());
+    if (length <= 0 || length > MAX_MESSAGE) {
+      throw new IllegalStateException("Bad message length " + length);
+    }
+    return in.remaining() - LENGTH_BYTES >= length ? length : -1;
+  }
+
+  static void putVarLong(ByteBuffer out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.put((byte) (value & 0x7F | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  static long getVarLong(ByteBuffer in) {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  static void putVarInt(ByteBuffer out, int value) {
+    putVarLong(out, value & 0xFFFFFFFFL);
+  }
+
+  static int getVarInt(ByteBuffer in) {
+    return (int) getVarLong(in);
+  }
+
+  // Zigzag so small negative deltas stay small
+  static void putSignedVarInt(ByteBuffer out, int value) {
+    putVarInt(out, value << 1 ^ value >> 31);
+  }
+
+  static int getSignedVarInt(ByteBuffer in) {
+    int zigzag = getVarInt(in);
+    return zigzag >>> 1 ^ -(zigzag & 1);
+  }
+}
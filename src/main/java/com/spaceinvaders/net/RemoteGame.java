@@ -0,0 +1,450 @@
+package com.spaceinvaders.net;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.TickClock;
+import com.spaceinvaders.entities.Bullet;
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Player;
+import com.spaceinvaders.enums.BulletType;
+import com.spaceinvaders.enums.InputCommand;
+import com.spaceinvaders.enums.InvaderType;
+import com.spaceinvaders.enums.PowerUpType;
+import com.spaceinvaders.factory.EntityFactory;
+import com.spaceinvaders.strategy.PlayerMovement;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// A game played on a GameServer, presented through a local GameEngine so the
+// renderer and input handling work unchanged. The local engine is never
+// updated; every tick its stores are rebuilt from the server's snapshots:
+// - the local player is predicted. Its input moves it at once through
+//   PlayerMovement and fires through Player.shoot, and each snapshot puts it
+//   back where the server has it and replays the inputs the server has not
+//   applied yet. A predicted shot is drawn until the snapshot on screen
+//   contains the server's bullet for it.
+// - everything else is drawn interpolationTicks behind the newest snapshot,
+//   between the two buffered snapshots around that tick.
+public class RemoteGame implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(RemoteGame.class.getName());
+
+  public static final int DEFAULT_INTERPOLATION_TICKS = 3;
+  private static final int SNAPSHOT_BUFFER = 32;
+  private static final int INPUT_HISTORY = 256;
+  private static final int MAX_SHOTS = 32;
+  // A slot that moves further than this per tick holds a different entity
+  // after the server compacted its store, so it is not interpolated
+  private static final int MAX_STEP = 24;
+  // Further than this from where it should be, the render clock jumps
+  private static final int MAX_RENDER_DRIFT = 8;
+  private static final double RENDER_CATCH_UP = 0.1;
+  private static final long CONNECT_TIMEOUT_MILLIS = 5000;
+
+  private static final int LEFT = 1 << InputCommand.LEFT.ordinal();
+  private static final int RIGHT = 1 << InputCommand.RIGHT.ordinal();
+  private static final int SHOOT = 1 << InputCommand.SHOOT.ordinal();
+  private static final InvaderType[] INVADER_TYPES = InvaderType.values();
+  private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+  private static final int PLAYER_BULLET = BulletType.PLAYER.ordinal();
+
+  private final Selector selector;
+  private final GameClient client;
+  private final GameEngine view;
+  private final int interpolationTicks;
+  private final int playerIndex;
+  private boolean prediction = true;
+  private boolean disconnected;
+  private long localTick;
+
+  private final WorldState[] snapshots = new WorldState[SNAPSHOT_BUFFER];
+  private final long[] snapshotAcks = new long[SNAPSHOT_BUFFER];
+  private int newest = -1;
+  private int snapshotCount;
+  private double renderTick = Double.NaN;
+
+  private final EntityStore<Player> predictedStore = new EntityStore<>(1);
+  private final Player predicted;
+  private final EntityStore<Bullet> shotStore = new EntityStore<>(1);
+  private final int[] inputs = new int[INPUT_HISTORY];
+  private long lastInput;
+  private boolean predictedValid;
+  private long corrections;
+  private long correctionPixels;
+
+  // Predicted shots, oldest first
+  private final long[] shotSequence = new long[MAX_SHOTS];
+  private final long[] shotTick = new long[MAX_SHOTS];
+  private final int[] shotX = new int[MAX_SHOTS];
+  private final int[] shotY = new int[MAX_SHOTS];
+  private final int[] shotVelocity = new int[MAX_SHOTS];
+  private int shotHead;
+  private int shotCount;
+
+  // What the view shows next, one entry per slot
+  private int[] nextType = new int[64];
+  private int[] nextX = new int[64];
+  private int[] nextY = new int[64];
+  private int[] nextAux = new int[64];
+  private boolean[] nextActive = new boolean[64];
+  private int[] lastX = new int[64];
+  private int[] lastY = new int[64];
+  private int[] lastType = new int[64];
+
+  private RemoteGame(Selector selector, GameClient client, int interpolationTicks) {
+    this.selector = selector;
+    this.client = client;
+    this.interpolationTicks = interpolationTicks;
+    this.playerIndex = client.getPlayerIndex();
+    this.view = new GameEngine(new GameManager(), new TickClock(client.getTicksPerSecond()), 0L,
+        client.getScreenWidth(), client.getScreenHeight());
+    for (int i = 0; i < SNAPSHOT_BUFFER; i++) {
+      snapshots[i] = new WorldState();
+    }
+    predicted = EntityFactory.createPlayer(predictedStore, 0, 0);
+
+    client.setListener(this::onSnapshot);
+    if (client.getSnapshots() > 0) {
+      onSnapshot(client.getWorld(), client.getAckedSequence());
+    }
+  }
+
+  // Joins the session and waits for the server to welcome us
+  public static RemoteGame connect(InetSocketAddress address, long sessionId, int interpolationTicks)
+      throws IOException {
+    Selector selector = Selector.open();
+    GameClient client = GameClient.connect(selector, address, sessionId);
+    long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+    try {
+      while (!client.isWelcomed()) {
+        if (client.isRejected()) {
+          throw new IOException("Server turned us away, reason " + client.getRejectReason());
+        }
+        long wait = deadline - System.currentTimeMillis();
+        if (wait <= 0) {
+          throw new IOException("No answer from " + address);
+        }
+        selector.select(wait);
+        handleSelected(selector);
+      }
+    } catch (IOException e) {
+      client.close();
+      selector.close();
+      throw e;
+    }
+    return new RemoteGame(selector, client, interpolationTicks);
+  }
+
+  private static void handleSelected(Selector selector) throws IOException {
+    Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+    while (selected.hasNext()) {
+      SelectionKey key = selected.next();
+      selected.remove();
+      ((GameClient) key.attachment()).handle(key);
+    }
+  }
+
+  // One client tick, at the server's rate: read what arrived, send and
+  // predict this tick's input, then rebuild the view
+  public void tick() {
+    if (!disconnected) {
+      try {
+        selector.selectNow();
+        handleSelected(selector);
+        sendInput(view.pollCommands());
+      } catch (IOException | RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Lost the connection to the server", e);
+        disconnected = true;
+      }
+    }
+
+    advanceRenderTick();
+    if (snapshotCount > 0) {
+      synchronized (view) {
+        buildView();
+      }
+    }
+    localTick++;
+  }
+
+  private void sendInput(int commands) throws IOException {
+    long sequence = client.sendInput(commands);
+    inputs[(int) (sequence % INPUT_HISTORY)] = commands;
+    lastInput = sequence;
+
+    if (prediction && predictedValid && canAct(snapshots[newest])) {
+      move(commands, serverTick(sequence));
+      if ((commands & SHOOT) != 0) {
+        shoot(sequence);
+      }
+    }
+  }
+
+  // The same checks GameEngine.handleInput makes, against the newest snapshot
+  private boolean canAct(WorldState world) {
+    return world.isGameRunning() && world.getLevelTransitionTicks() == 0
+        && playerIndex < world.size(WorldState.PLAYERS)
+        && world.get(WorldState.PLAYERS, playerIndex, WorldState.ACTIVE) != 0;
+  }
+
+  // Moves as far as the server will on the tick it applies the input in
+  private void move(int commands, long tick) {
+    PlayerMovement movement = (PlayerMovement) predicted.movementStrategy;
+    if ((commands & LEFT) != 0) {
+      movement.moveLeft(predicted, view.getTickScale(), tick);
+    }
+    if ((commands & RIGHT) != 0) {
+      movement.moveRight(predicted, client.getScreenWidth(), view.getTickScale(), tick);
+    }
+  }
+
+  // The server applies one input per tick, the acknowledged one on the newest snapshot's
+  private long serverTick(long sequence) {
+    return snapshots[newest].getTick() + sequence - snapshotAcks[newest];
+  }
+
+  private void shoot(long sequence) {
+    Bullet bullet = predicted.shoot(localTick * 1000 / client.getTicksPerSecond(), shotStore);
+    if (bullet == null) {
+      return;
+    }
+    if (shotCount == MAX_SHOTS) {
+      shotHead = (shotHead + 1) % MAX_SHOTS;
+      shotCount--;
+    }
+    int shot = (shotHead + shotCount++) % MAX_SHOTS;
+    shotSequence[shot] = sequence;
+    shotTick[shot] = localTick;
+    shotX[shot] = bullet.getX();
+    shotY[shot] = bullet.getY();
+    shotVelocity[shot] = bullet.getVelocityY();
+    shotStore.clear();
+  }
+
+  private void onSnapshot(WorldState world, long ackedSequence) {
+    newest = (newest + 1) % SNAPSHOT_BUFFER;
+    snapshots[newest].copyFrom(world);
+    snapshotAcks[newest] = ackedSequence;
+    snapshotCount = Math.min(snapshotCount + 1, SNAPSHOT_BUFFER);
+
+    if (playerIndex >= world.size(WorldState.PLAYERS)) {
+      return;
+    }
+    int beforeX = predicted.getX();
+    predicted.setPosition(world.get(WorldState.PLAYERS, playerIndex, WorldState.X),
+        world.get(WorldState.PLAYERS, playerIndex, WorldState.Y));
+    if (!prediction) {
+      return;
+    }
+    if (canAct(world)) {
+      long first = Math.max(ackedSequence + 1, lastInput - INPUT_HISTORY + 1);
+      for (long sequence = first; sequence <= lastInput; sequence++) {
+        move(inputs[(int) (sequence % INPUT_HISTORY)], serverTick(sequence));
+      }
+    }
+    if (predictedValid && predicted.getX() != beforeX) {
+      corrections++;
+      correctionPixels += Math.abs(predicted.getX() - beforeX);
+    }
+    predictedValid = true;
+  }
+
+  // Runs one tick per tick, easing towards interpolationTicks behind the newest snapshot
+  private void advanceRenderTick() {
+    if (snapshotCount == 0) {
+      return;
+    }
+    long latest = snapshots[newest].getTick();
+    double target = latest - interpolationTicks;
+    if (Double.isNaN(renderTick) || Math.abs(target - renderTick) > MAX_RENDER_DRIFT) {
+      renderTick = target;
+    } else {
+      renderTick = Math.min(latest, renderTick + 1 + (target - renderTick) * RENDER_CATCH_UP);
+    }
+  }
+
+  private void buildView() {
+    // from: the newest snapshot at or before the render tick, to: the one after it
+    int from = -1;
+    int to = -1;
+    for (int k = 0; k < snapshotCount; k++) {
+      int index = (newest - k + SNAPSHOT_BUFFER) % SNAPSHOT_BUFFER;
+      if (snapshots[index].getTick() <= renderTick) {
+        from = index;
+        break;
+      }
+      to = index;
+    }
+    if (from < 0) {
+      from = to;
+      to = -1;
+    }
+    WorldState a = snapshots[from];
+    WorldState b = to >= 0 ? snapshots[to] : null;
+    double t = b == null ? 0 : (renderTick - a.getTick()) / (b.getTick() - a.getTick());
+
+    view.getGameManager().restore(a.getScore(), a.getLives(), a.isGameRunning(), a.getLevel(),
+        a.getLevelTransitionTicks());
+
+    int size = interpolate(WorldState.PLAYERS, a, b, t);
+    WorldState latest = snapshots[newest];
+    if (prediction && predictedValid && playerIndex < size && playerIndex < latest.size(WorldState.PLAYERS)) {
+      nextX[playerIndex] = predicted.getX();
+      nextY[playerIndex] = predicted.getY();
+      nextActive[playerIndex] = latest.get(WorldState.PLAYERS, playerIndex, WorldState.ACTIVE) != 0;
+      nextAux[playerIndex] = latest.get(WorldState.PLAYERS, playerIndex, WorldState.AUX);
+    }
+    apply(view.getPlayers(), WorldState.PLAYERS, size);
+
+    apply(view.getInvaders(), WorldState.INVADERS, interpolate(WorldState.INVADERS, a, b, t));
+
+    size = interpolate(WorldState.BULLETS, a, b, t);
+    size = addShots(size, snapshotAcks[from]);
+    apply(view.getBullets(), WorldState.BULLETS, size);
+
+    apply(view.getPowerUps(), WorldState.POWER_UPS, interpolate(WorldState.POWER_UPS, a, b, t));
+  }
+
+  // Fills the next* arrays from a, moved towards b where the slot still holds
+  // the same entity, and returns the slot count
+  private int interpolate(int store, WorldState a, WorldState b, double t) {
+    int size = a.size(store);
+    ensureCapacity(size + MAX_SHOTS);
+    long ticks = b == null ? 0 : b.getTick() - a.getTick();
+    for (int i = 0; i < size; i++) {
+      int type = a.get(store, i, WorldState.TYPE);
+      int x = a.get(store, i, WorldState.X);
+      int y = a.get(store, i, WorldState.Y);
+      boolean active = a.get(store, i, WorldState.ACTIVE) != 0;
+      if (b != null && active && i < b.size(store)
+          && b.get(store, i, WorldState.ACTIVE) != 0 && b.get(store, i, WorldState.TYPE) == type) {
+        int dx = b.get(store, i, WorldState.X) - x;
+        int dy = b.get(store, i, WorldState.Y) - y;
+        if (Math.abs(dx) <= MAX_STEP * ticks && Math.abs(dy) <= MAX_STEP * ticks) {
+          x += (int) Math.round(dx * t);
+          y += (int) Math.round(dy * t);
+        }
+      }
+      nextType[i] = type;
+      nextX[i] = x;
+      nextY[i] = y;
+      nextActive[i] = active;
+      nextAux[i] = a.get(store, i, WorldState.AUX);
+    }
+    return size;
+  }
+
+  // Appends the predicted shots the snapshot on screen has not caught up with
+  private int addShots(int size, long shownAck) {
+    while (shotCount > 0 && shotSequence[shotHead] <= shownAck) {
+      shotHead = (shotHead + 1) % MAX_SHOTS;
+      shotCount--;
+    }
+    for (int k = 0; k < shotCount; k++) {
+      int shot = (shotHead + k) % MAX_SHOTS;
+      int y = shotY[shot] + view.getTickScale().distance(shotVelocity[shot], shotTick[shot], localTick);
+      if (y + Bullet.HEIGHT < 0) {
+        continue;
+      }
+      nextType[size] = PLAYER_BULLET;
+      nextX[size] = shotX[shot];
+      nextY[size] = y;
+      nextActive[size] = true;
+      nextAux[size] = 0;
+      size++;
+    }
+    return size;
+  }
+
+  // Recreates the view's entities only when the slots changed, and keeps the
+  // last positions as the previous ones wherever a slot kept its entity, so
+  // the renderer's alpha smooths the step between two ticks
+  private void apply(EntityStore<?> entities, int store, int size) {
+    int oldSize = entities.size();
+    boolean same = oldSize == size;
+    for (int i = 0; i < oldSize; i++) {
+      lastX[i] = entities.getX(i);
+      lastY[i] = entities.getY(i);
+      lastType[i] = entities.getType(i);
+      same &= i >= size || lastType[i] == nextType[i] && entities.isActive(i) == nextActive[i];
+    }
+
+    if (!same) {
+      entities.clear();
+      for (int i = 0; i < size; i++) {
+        create(store, nextType[i], nextX[i], nextY[i]);
+        if (!nextActive[i]) {
+          entities.deactivate(i);
+        }
+      }
+    }
+
+    for (int i = 0; i < size; i++) {
+      boolean kept = i < oldSize && lastType[i] == nextType[i]
+          && Math.abs(lastX[i] - nextX[i]) <= MAX_STEP && Math.abs(lastY[i] - nextY[i]) <= MAX_STEP;
+      entities.get(i).setPosition(nextX[i], nextY[i]);
+      entities.setPrevious(i, kept ? lastX[i] : nextX[i], kept ? lastY[i] : nextY[i]);
+    }
+    if (store == WorldState.PLAYERS) {
+      for (int i = 0; i < size; i++) {
+        Player player = view.getPlayers().get(i);
+        player.restore(nextAux[i], player.getFireRate(), player.getLastShotTime());
+      }
+    }
+  }
+
+  private void create(int store, int type, int x, int y) {
+    switch (store) {
+      case WorldState.PLAYERS -> EntityFactory.createPlayer(view.getPlayers(), x, y);
+      case WorldState.INVADERS -> EntityFactory.createInvader(view.getInvaders(), x, y, INVADER_TYPES[type], null);
+      case WorldState.BULLETS -> {
+        if (type == PLAYER_BULLET) {
+          EntityFactory.createPlayerBullet(view.getBullets(), x, y);
+        } else {
+          EntityFactory.createInvaderBullet(view.getBullets(), x, y);
+        }
+      }
+      default -> EntityFactory.createPowerUp(view.getPowerUps(), x, y, POWER_UP_TYPES[type]);
+    }
+  }
+
+  private void ensureCapacity(int size) {
+    if (size > nextType.length) {
+      int capacity = Math.max(size, nextType.length * 2);
+      nextType = Arrays.copyOf(nextType, capacity);
+      nextX = Arrays.copyOf(nextX, capacity);
+      nextY = Arrays.copyOf(nextY, capacity);
+      nextAux = Arrays.copyOf(nextAux, capacity);
+      nextActive = Arrays.copyOf(nextActive, capacity);
+      lastX = Arrays.copyOf(lastX, capacity);
+      lastY = Arrays.copyOf(lastY, capacity);
+      lastType = Arrays.copyOf(lastType, capacity);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    client.close();
+    selector.close();
+  }
+
+  public GameEngine getView() { return view; }
+  public GameClient getClient() { return client; }
+  public int getPlayerIndex() { return playerIndex; }
+  public int getTicksPerSecond() { return client.getTicksPerSecond(); }
+  public int getInterpolationTicks() { return interpolationTicks; }
+  public boolean isPrediction() { return prediction; }
+  // Without prediction the local player is drawn from snapshots like everyone else
+  public void setPrediction(boolean prediction) { this.prediction = prediction; }
+  public boolean isDisconnected() { return disconnected; }
+  public long getLocalTick() { return localTick; }
+  public double getRenderTick() { return renderTick; }
+  public long getCorrections() { return corrections; }
+  public long getCorrectionPixels() { return correctionPixels; }
+}
@@ -0,0 +1,206 @@
+package com.spaceinvaders.net;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.entities.EntityStore;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// What a client needs to draw a session: the GameManager fields and, for each
+// entity store, one row of FIELDS ints per slot. Rows follow the server's
+// slots, compaction included, so a client mirror stays an exact copy.
+//
+// A delta against a baseline holds the tick advance, a bit mask of changed
+// header fields and their zigzag differences, then per store the new size and
+// every changed slot as (gap to the previous changed slot + 1, field mask,
+// zigzag differences), ended by a 0. Slots past the baseline's size count as
+// all zero, which makes a delta against an empty state a full snapshot.
+public class WorldState {
+  public static final int PLAYERS = 0;
+  public static final int INVADERS = 1;
+  public static final int BULLETS = 2;
+  public static final int POWER_UPS = 3;
+  static final int STORES = 4;
+
+  public static final int ACTIVE = 0;
+  public static final int TYPE = 1;
+  public static final int X = 2;
+  public static final int Y = 3;
+  public static final int VELOCITY_X = 4;
+  public static final int VELOCITY_Y = 5;
+  // Health for players, unused otherwise
+  public static final int AUX = 6;
+  static final int FIELDS = 7;
+
+  private static final int SCORE = 0;
+  private static final int LIVES = 1;
+  private static final int LEVEL = 2;
+  private static final int TRANSITION = 3;
+  private static final int RUNNING = 4;
+  private static final int HEADER_FIELDS = 5;
+
+  private long tick;
+  private final int[] header = new int[HEADER_FIELDS];
+  private final int[][] rows = new int[STORES][FIELDS * 16];
+  private final int[] sizes = new int[STORES];
+
+  public void capture(GameEngine engine) {
+    GameManager gameManager = engine.getGameManager();
+    tick = engine.getTick();
+    header[SCORE] = gameManager.getScore();
+    header[LIVES] = gameManager.getLives();
+    header[LEVEL] = gameManager.getLevel();
+    header[TRANSITION] = gameManager.getLevelTransitionTicks();
+    header[RUNNING] = gameManager.isGameRunning() ? 1 : 0;
+
+    capture(PLAYERS, engine.getPlayers());
+    for (int i = 0; i < sizes[PLAYERS]; i++) {
+      rows[PLAYERS][i * FIELDS + AUX] = engine.getPlayers().get(i).getHealth();
+    }
+    capture(INVADERS, engine.getInvaders());
+    capture(BULLETS, engine.getBullets());
+    capture(POWER_UPS, engine.getPowerUps());
+  }
+
+  private void capture(int store, EntityStore<?> entities) {
+    int size = entities.size();
+    resize(store, size);
+    int[] data = rows[store];
+    for (int i = 0; i < size; i++) {
+      int row = i * FIELDS;
+      data[row + ACTIVE] = entities.isActive(i) ? 1 : 0;
+      data[row + TYPE] = entities.getType(i);
+      data[row + X] = entities.getX(i);
+      data[row + Y] = entities.getY(i);
+      data[row + VELOCITY_X] = entities.getVelocityX(i);
+      data[row + VELOCITY_Y] = entities.getVelocityY(i);
+      data[row + AUX] = 0;
+    }
+  }
+
+  // New slots always start zeroed, whatever an earlier, larger size left there
+  private void resize(int store, int size) {
+    int needed = size * FIELDS;
+    if (needed > rows[store].length) {
+      rows[store] = Arrays.copyOf(rows[store], Math.max(needed, rows[store].length * 2));
+    }
+    if (size > sizes[store]) {
+      Arrays.fill(rows[store], sizes[store] * FIELDS, needed, 0);
+    }
+    sizes[store] = size;
+  }
+
+  public void writeDelta(WorldState base, ByteBuffer out) {
+    Protocol.putVarLong(out, tick - base.tick);
+
+    int mask = 0;
+    for (int f = 0; f < HEADER_FIELDS; f++) {
+      if (header[f] != base.header[f]) {
+        mask |= 1 << f;
+      }
+    }
+    out.put((byte) mask);
+    for (int f = 0; f < HEADER_FIELDS; f++) {
+      if ((mask & 1 << f) != 0) {
+        Protocol.putSignedVarInt(out, header[f] - base.header[f]);
+      }
+    }
+
+    for (int s = 0; s < STORES; s++) {
+      int[] data = rows[s];
+      int[] baseData = base.rows[s];
+      int baseSize = base.sizes[s];
+      Protocol.putVarInt(out, sizes[s]);
+
+      int next = 0;
+      for (int i = 0; i < sizes[s]; i++) {
+        int row = i * FIELDS;
+        int fields = 0;
+        for (int f = 0; f < FIELDS; f++) {
+          int before = i < baseSize ? baseData[row + f] : 0;
+          if (data[row + f] != before) {
+            fields |= 1 << f;
+          }
+        }
+        if (fields == 0) {
+          continue;
+        }
+
+        Protocol.putVarInt(out, i - next + 1);
+        out.put((byte) fields);
+        for (int f = 0; f < FIELDS; f++) {
+          if ((fields & 1 << f) != 0) {
+            int before = i < baseSize ? baseData[row + f] : 0;
+            Protocol.putSignedVarInt(out, data[row + f] - before);
+          }
+        }
+        next = i + 1;
+      }
+      Protocol.putVarInt(out, 0);
+    }
+  }
+
+  // Applies a delta written against this state's current contents
+  public void readDelta(ByteBuffer in) {
+    tick += Protocol.getVarLong(in);
+
+    int mask = in.get();
+    for (int f = 0; f < HEADER_FIELDS; f++) {
+      if ((mask & 1 << f) != 0) {
+        header[f] += Protocol.getSignedVarInt(in);
+      }
+    }
+
+    for (int s = 0; s < STORES; s++) {
+      resize(s, Protocol.getVarInt(in));
+      int[] data = rows[s];
+      int slot = 0;
+      int gap;
+      while ((gap = Protocol.getVarInt(in)) != 0) {
+        slot += gap - 1;
+        int row = slot * FIELDS;
+        int fields = in.get();
+        for (int f = 0; f < FIELDS; f++) {
+          if ((fields & 1 << f) != 0) {
+            data[row + f] += Protocol.getSignedVarInt(in);
+          }
+        }
+        slot++;
+      }
+    }
+  }
+
+  public void copyFrom(WorldState other) {
+    tick = other.tick;
+    System.arraycopy(other.header, 0, header, 0, HEADER_FIELDS);
+    for (int s = 0; s < STORES; s++) {
+      resize(s, other.sizes[s]);
+      System.arraycopy(other.rows[s], 0, rows[s], 0, other.sizes[s] * FIELDS);
+    }
+  }
+
+  // Sent with every snapshot so a client can tell its mirror went wrong
+  public long checksum() {
+    long hash = 0xcbf29ce484222325L ^ tick;
+    for (int value : header) {
+      hash = (hash ^ value) * 0x100000001b3L;
+    }
+    for (int s = 0; s < STORES; s++) {
+      hash = (hash ^ sizes[s]) * 0x100000001b3L;
+      int[] data = rows[s];
+      for (int i = 0, n = sizes[s] * FIELDS; i < n; i++) {
+        hash = (hash ^ data[i]) * 0x100000001b3L;
+      }
+    }
+    return hash;
+  }
+
+  public long getTick() { return tick; }
+  public int getScore() { return header[SCORE]; }
+  public int getLives() { return header[LIVES]; }
+  public int getLevel() { return header[LEVEL]; }
+  public int getLevelTransitionTicks() { return header[TRANSITION]; }
+  public boolean isGameRunning() { return header[RUNNING] != 0; }
+  public int size(int store) { return sizes[store]; }
+  public int get(int store, int slot, int field) { return rows[store][slot * FIELDS + field]; }
+}
@@ -0,0 +1,172 @@
+package com.spaceinvaders.replay;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.TickClock;
+import com.spaceinvaders.level.LevelSet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class ReplayPlayer {
+  private final byte[] data;
+  private int position;
+
+  private final long seed;
+  private final int ticksPerSecond;
+  private final int screenWidth;
+  private final int screenHeight;
+  private final LevelSet levels;
+  private long[] changeTicks = new long[64];
+  private int[] changeCommands = new int[64];
+  private int changeCount;
+  private final long totalTicks;
+  private final int expectedScore;
+  private final int expectedLives;
+  private final int expectedLevel;
+
+  public ReplayPlayer(byte[] data) {
+    this.data = data;
+    if (data.length < 4 || readInt() != ReplayRecorder.MAGIC) {
+      throw new IllegalArgumentException("Not a replay file");
+    }
+    int version = (int) readVarLong();
+    if (version < 1 || version > ReplayRecorder.VERSION) {
+      throw new IllegalArgumentException("Unsupported replay version " + version);
+    }
+    long zigzag = readVarLong();
+    seed = zigzag >>> 1 ^ -(zigzag & 1);
+    ticksPerSecond = (int) readVarLong();
+    screenWidth = (int) readVarLong();
+    screenHeight = (int) readVarLong();
+    byte[] levelBytes = new byte[0];
+    if (version >= 2) {
+      long length = readVarLong();
+      if (length < 0 || length > data.length - position) {
+        throw new IllegalArgumentException("Truncated replay file");
+      }
+      levelBytes = Arrays.copyOfRange(data, position, position + (int) length);
+      position += (int) length;
+    }
+    levels = Snapshot.levelsOf(levelBytes);
+
+    long tick = -1;
+    long delta;
+    while ((delta = readVarLong()) != 0) {
+      tick += delta;
+      if (changeCount == changeTicks.length) {
+        changeTicks = Arrays.copyOf(changeTicks, changeCount * 2);
+        changeCommands = Arrays.copyOf(changeCommands, changeCount * 2);
+      }
+      changeTicks[changeCount] = tick;
+      changeCommands[changeCount++] = (int) readVarLong();
+    }
+    totalTicks = readVarLong();
+    expectedScore = (int) readVarLong();
+    expectedLives = (int) readVarLong();
+    expectedLevel = (int) readVarLong();
+  }
+
+  public static ReplayPlayer load(Path path) throws IOException {
+    return new ReplayPlayer(Files.readAllBytes(path));
+  }
+
+  public GameEngine createEngine() {
+    return new GameEngine(new GameManager(), new TickClock(ticksPerSecond), seed,
+        screenWidth, screenHeight, levels);
+  }
+
+  // Runs the whole recording through a fresh engine as fast as it will tick
+  public GameEngine play() {
+    return play(createEngine());
+  }
+
+  // Starts from a snapshot taken during the recorded game instead of tick 0
+  public GameEngine seek(Snapshot snapshot) {
+    if (snapshot.getSeed() != seed || !Snapshot.sameLevels(snapshot.getLevels(), levels)) {
+      throw new IllegalArgumentException("Snapshot is not from this replay");
+    }
+    return snapshot.restore();
+  }
+
+  // Plays the rest of the recording from wherever the engine is
+  public GameEngine play(GameEngine engine) {
+    int next = 0;
+    while (next < changeCount && changeTicks[next] <= engine.getTick()) {
+      next++;
+    }
+    int commands = next > 0 ? changeCommands[next - 1] : 0;
+
+    for (long tick = engine.getTick(); tick < totalTicks; tick++) {
+      if (next < changeCount && changeTicks[next] == tick) {
+        commands = changeCommands[next++];
+      }
+      engine.applyCommands(commands);
+      engine.update();
+    }
+    return engine;
+  }
+
+  public boolean matches(GameManager gameManager) {
+    return gameManager.getScore() == expectedScore
+        && gameManager.getLives() == expectedLives
+        && gameManager.getLevel() == expectedLevel;
+  }
+
+  public long getSeed() { return seed; }
+  public LevelSet getLevels() { return levels; }
+  public long getTotalTicks() { return totalTicks; }
+  public int getExpectedScore() { return expectedScore; }
+  public int getExpectedLives() { return expectedLives; }
+  public int getExpectedLevel() { return expectedLevel; }
+
+  private int readInt() {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = value << 8 | data[position++] & 0xFF;
+    }
+    return value;
+  }
+
+  private long readVarLong() {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      if (position >= data.length) {
+        throw new IllegalArgumentException("Truncated replay file");
+      }
+      b = data[position++];
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: ReplayPlayer <replay file> [snapshot to start from]");
+      System.exit(2);
+    }
+
+    ReplayPlayer replay = load(Path.of(args[0]));
+    GameEngine engine = args.length > 1 ? replay.seek(Snapshot.load(Path.of(args[1]))) : replay.createEngine();
+    long startTick = engine.getTick();
+    long start = System.nanoTime();
+    GameManager gm = replay.play(engine).getGameManager();
+    long elapsed = System.nanoTime() - start;
+
+    long ticks = replay.getTotalTicks() - startTick;
+    System.out.printf("Ticks: %d from tick %d in %.1f ms (%.0f ticks/ms)%n", ticks, startTick,
+        elapsed / 1_000_000.0, ticks * 1_000_000.0 / Math.max(1, elapsed));
+    System.out.println("Expected score " + replay.getExpectedScore() + ", lives " + replay.getExpectedLives()
+        + ", level " + replay.getExpectedLevel());
+    System.out.println("Actual   score " + gm.getScore() + ", lives " + gm.getLives() + ", level " + gm.getLevel());
+    if (!replay.matches(gm)) {
+      System.out.println("MISMATCH");
+      System.exit(1);
+    }
+    System.out.println("OK");
+  }
+}
@@ -0,0 +1,115 @@
+package com.spaceinvaders.replay;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.level.LevelSet;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Replay layout, every value an unsigned LEB128 varint after the 4-byte magic:
+//   version, seed (zigzag), ticks per second, screen width, screen height
+//   the level text's byte length and UTF-8 bytes, 0 and none for the classic
+//   levels (version 1 has neither)
+//   one pair per input change: ticks since the previous change, command bits
+//   a 0, then the total tick count and the final score, lives and level
+public class ReplayRecorder {
+  static final int MAGIC = 0x53495250; // "SIRP"
+  static final int VERSION = 2;
+
+  private byte[] buffer = new byte[256];
+  private int size;
+  private long lastTick = -1;
+  private int lastCommands;
+  private boolean finished;
+
+  public ReplayRecorder(long seed, int ticksPerSecond, int screenWidth, int screenHeight) {
+    this(seed, ticksPerSecond, screenWidth, screenHeight, LevelSet.classic());
+  }
+
+  public ReplayRecorder(long seed, int ticksPerSecond, int screenWidth, int screenHeight, LevelSet levels) {
+    writeInt(MAGIC);
+    writeVarLong(VERSION);
+    writeVarLong(seed << 1 ^ seed >> 63);
+    writeVarLong(ticksPerSecond);
+    writeVarLong(screenWidth);
+    writeVarLong(screenHeight);
+    byte[] levelBytes = Snapshot.levelBytes(levels);
+    writeVarLong(levelBytes.length);
+    ensureCapacity(levelBytes.length);
+    System.arraycopy(levelBytes, 0, buffer, size, levelBytes.length);
+    size += levelBytes.length;
+  }
+
+  // Recording has to start with the engine, before its first tick
+  public static ReplayRecorder attach(GameEngine engine, int ticksPerSecond) {
+    if (engine.getTick() != 0) {
+      throw new IllegalStateException("Engine already at tick " + engine.getTick());
+    }
+    ReplayRecorder recorder = new ReplayRecorder(engine.getSeed(), ticksPerSecond,
+        engine.getScreenWidth(), engine.getScreenHeight(), engine.getLevels());
+    engine.setRecorder(recorder);
+    return recorder;
+  }
+
+  // Called once per tick with the commands applied on it; only changes are stored
+  public void record(long tick, int commands) {
+    if (finished || commands == lastCommands) {
+      return;
+    }
+    writeVarLong(tick - lastTick);
+    writeVarLong(commands);
+    lastTick = tick;
+    lastCommands = commands;
+  }
+
+  public void finish(long ticks, GameManager gameManager) {
+    if (finished) {
+      return;
+    }
+    writeVarLong(0);
+    writeVarLong(ticks);
+    writeVarLong(gameManager.getScore());
+    writeVarLong(gameManager.getLives());
+    writeVarLong(gameManager.getLevel());
+    finished = true;
+  }
+
+  public void save(Path path) throws IOException {
+    if (!finished) {
+      throw new IllegalStateException("Replay not finished");
+    }
+    Files.write(path, toByteArray());
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buffer, size);
+  }
+
+  public boolean isFinished() { return finished; }
+  public int size() { return size; }
+
+  private void writeInt(int value) {
+    ensureCapacity(4);
+    buffer[size++] = (byte) (value >>> 24);
+    buffer[size++] = (byte) (value >>> 16);
+    buffer[size++] = (byte) (value >>> 8);
+    buffer[size++] = (byte) value;
+  }
+
+  private void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[size++] = (byte) (value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    buffer[size++] = (byte) value;
+  }
+
+  private void ensureCapacity(int extra) {
+    if (size + extra > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(size + extra, buffer.length * 2));
+    }
+  }
+}
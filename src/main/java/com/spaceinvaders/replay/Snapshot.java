@@ -0,0 +1,131 @@
+package com.spaceinvaders.replay;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.TickClock;
+import com.spaceinvaders.level.LevelParser;
+import com.spaceinvaders.level.LevelSet;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Header: magic "SISN", version, seed, ticks per second, screen width and
+// height, the level text's length and UTF-8 bytes (0 and none for the classic
+// levels; version 1 has neither), then the engine state as written by
+// GameEngine.writeState
+public class Snapshot {
+  static final int MAGIC = 0x5349534E;
+  static final int VERSION = 2;
+  private static final byte[] NO_BYTES = new byte[0];
+  private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4;
+
+  private final long seed;
+  private final int ticksPerSecond;
+  private final int screenWidth;
+  private final int screenHeight;
+  private final LevelSet levels;
+  private final ByteBuffer state;
+
+  private Snapshot(ByteBuffer buffer) {
+    if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a snapshot file");
+    }
+    int version = buffer.getInt();
+    if (version < 1 || version > VERSION) {
+      throw new IllegalArgumentException("Unsupported snapshot version " + version);
+    }
+    seed = buffer.getLong();
+    ticksPerSecond = buffer.getInt();
+    screenWidth = buffer.getInt();
+    screenHeight = buffer.getInt();
+    byte[] levelBytes = NO_BYTES;
+    if (version >= 2) {
+      int length = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+      if (length < 0 || length > buffer.remaining()) {
+        throw new IllegalArgumentException("Truncated snapshot header");
+      }
+      levelBytes = new byte[length];
+      buffer.get(levelBytes);
+    }
+    levels = levelsOf(levelBytes);
+    state = buffer.slice();
+  }
+
+  // Fills the buffer with the engine's state, ready to read. Returns a larger
+  // buffer if the given one was too small.
+  public static ByteBuffer encode(GameEngine engine, int ticksPerSecond, ByteBuffer buffer) {
+    while (true) {
+      try {
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(engine.getSeed());
+        buffer.putInt(ticksPerSecond);
+        buffer.putInt(engine.getScreenWidth());
+        buffer.putInt(engine.getScreenHeight());
+        byte[] levelBytes = levelBytes(engine.getLevels());
+        buffer.putInt(levelBytes.length);
+        buffer.put(levelBytes);
+        engine.writeState(buffer);
+        buffer.flip();
+        return buffer;
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+      }
+    }
+  }
+
+  public static Snapshot decode(ByteBuffer buffer) {
+    return new Snapshot(buffer);
+  }
+
+  // Maps the file instead of reading it; the mapping outlives the channel
+  public static Snapshot load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  public GameEngine restore() {
+    return restore(new GameManager());
+  }
+
+  public GameEngine restore(GameManager gameManager) {
+    GameEngine engine = new GameEngine(gameManager, new TickClock(ticksPerSecond), seed,
+        screenWidth, screenHeight, levels);
+    restoreInto(engine);
+    return engine;
+  }
+
+  public void restoreInto(GameEngine engine) {
+    if (engine.getSeed() != seed) {
+      throw new IllegalArgumentException("Snapshot belongs to a game with seed " + seed);
+    }
+    if (!sameLevels(engine.getLevels(), levels)) {
+      throw new IllegalArgumentException("Snapshot belongs to a game with other levels");
+    }
+    engine.readState(state.duplicate());
+  }
+
+  // The classic levels are left out, so files without --levels stay as small as before
+  static byte[] levelBytes(LevelSet levels) {
+    return levels == LevelSet.classic() ? NO_BYTES : levels.getSource().getBytes(StandardCharsets.UTF_8);
+  }
+
+  static LevelSet levelsOf(byte[] bytes) {
+    return bytes.length == 0 ? LevelSet.classic() : LevelParser.parse(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  static boolean sameLevels(LevelSet a, LevelSet b) {
+    return a == b || a.getSource().equals(b.getSource());
+  }
+
+  public long getSeed() { return seed; }
+  public int getTicksPerSecond() { return ticksPerSecond; }
+  public LevelSet getLevels() { return levels; }
+  public long getTick() { return state.getLong(0); }
+}
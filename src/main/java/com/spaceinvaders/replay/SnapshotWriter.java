@@ -0,0 +1,110 @@
+package com.spaceinvaders.replay;
+
+import com.spaceinvaders.core.GameEngine;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Copies the engine state into a spare buffer on the game loop thread and
+// hands it to a background thread that writes it out through a mapped file.
+// The loop never waits: with both buffers still in flight a snapshot is skipped.
+public class SnapshotWriter implements AutoCloseable {
+  private static final Logger LOGGER = Logger.getLogger(SnapshotWriter.class.getName());
+  private static final int BUFFER_COUNT = 2;
+  private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+  private final Path directory;
+  private final int ticksPerSecond;
+  private final long interval;
+  private final ConcurrentLinkedQueue<ByteBuffer> spare = new ConcurrentLinkedQueue<>();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "snapshot-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile Path lastWritten;
+  private volatile int skipped;
+
+  public SnapshotWriter(Path directory, int ticksPerSecond, long interval) throws IOException {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Snapshot interval must be positive: " + interval);
+    }
+    this.directory = Files.createDirectories(directory);
+    this.ticksPerSecond = ticksPerSecond;
+    this.interval = interval;
+    for (int i = 0; i < BUFFER_COUNT; i++) {
+      spare.offer(ByteBuffer.allocate(INITIAL_BUFFER_BYTES));
+    }
+  }
+
+  // Called by the engine after every tick
+  public void onTick(GameEngine engine) {
+    if (engine.getTick() % interval == 0) {
+      capture(engine);
+    }
+  }
+
+  public boolean capture(GameEngine engine) {
+    ByteBuffer buffer = spare.poll();
+    if (buffer == null) {
+      skipped++;
+      LOGGER.log(Level.FINE, "Snapshot at tick {0} skipped, writer busy", engine.getTick());
+      return false;
+    }
+
+    ByteBuffer filled = Snapshot.encode(engine, ticksPerSecond, buffer);
+    Path target = directory.resolve(fileName(engine.getTick()));
+    executor.execute(() -> write(filled, target));
+    return true;
+  }
+
+  // Written under a temporary name and moved into place, so a crash mid-write
+  // never leaves a truncated snapshot behind
+  private void write(ByteBuffer buffer, Path target) {
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.remaining());
+        mapped.put(buffer);
+        mapped.force();
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      lastWritten = target;
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not write snapshot " + target, e);
+    } finally {
+      buffer.clear();
+      spare.offer(buffer);
+    }
+  }
+
+  public static String fileName(long tick) {
+    return String.format("snapshot-%010d.snap", tick);
+  }
+
+  // Waits for pending writes; an interrupt stops the wait and stays set
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public Path getLastWritten() { return lastWritten; }
+  public int getSkipped() { return skipped; }
+}
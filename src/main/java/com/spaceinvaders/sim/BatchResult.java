@@ -0,0 +1,48 @@
+package com.spaceinvaders.sim;
+
+import com.spaceinvaders.metrics.Histogram;
+
+public class BatchResult {
+  private final Histogram scores = new Histogram();
+  private final Histogram levels = new Histogram();
+  private final Histogram survivalTicks = new Histogram();
+  private long games;
+  private long gamesOver;
+  private long ticks;
+
+  void add(int score, int level, long survived, boolean gameOver) {
+    scores.record(score);
+    levels.record(level);
+    survivalTicks.record(survived);
+    games++;
+    ticks += survived;
+    if (gameOver) {
+      gamesOver++;
+    }
+  }
+
+  BatchResult merge(BatchResult other) {
+    scores.merge(other.scores);
+    levels.merge(other.levels);
+    survivalTicks.merge(other.survivalTicks);
+    games += other.games;
+    gamesOver += other.gamesOver;
+    ticks += other.ticks;
+    return this;
+  }
+
+  public Histogram getScores() { return scores; }
+  public Histogram getLevels() { return levels; }
+  public Histogram getSurvivalTicks() { return survivalTicks; }
+  public long getGames() { return games; }
+  public long getGamesOver() { return gamesOver; }
+  public long getTicks() { return ticks; }
+
+  @Override
+  public String toString() {
+    return "Games: " + games + " (" + gamesOver + " lost, the rest hit the tick limit)\n"
+        + "Score:    " + scores + "\n"
+        + "Level:    " + levels + "\n"
+        + "Survived: " + survivalTicks;
+  }
+}
@@ -0,0 +1,100 @@
+package com.spaceinvaders.sim;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.TickClock;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+// Plays many independent headless games in parallel. Engines share nothing,
+// so each fork-join leaf runs its games sequentially and only the result
+// histograms are merged on the way back up.
+public class BatchRunner {
+  private static final int GAMES_PER_LEAF = 4;
+
+  private final ForkJoinPool pool;
+  private final int screenWidth;
+  private final int screenHeight;
+
+  public BatchRunner(ForkJoinPool pool) {
+    this(pool, GameEngine.SCREEN_WIDTH, GameEngine.SCREEN_HEIGHT);
+  }
+
+  public BatchRunner(ForkJoinPool pool, int screenWidth, int screenHeight) {
+    this.pool = pool;
+    this.screenWidth = screenWidth;
+    this.screenHeight = screenHeight;
+  }
+
+  // Game i uses seed baseSeed + i, for both the engine and its policy
+  public BatchResult run(int games, long baseSeed, long maxTicks, LongFunction<PlayerPolicy> policies) {
+    return pool.invoke(new Batch(0, games, baseSeed, maxTicks, policies));
+  }
+
+  void play(long seed, long maxTicks, PlayerPolicy policy, BatchResult result) {
+    GameManager gameManager = new GameManager();
+    GameEngine engine = new GameEngine(gameManager, new TickClock(GameLoop.DEFAULT_TICK_RATE), seed,
+        screenWidth, screenHeight);
+    long tick = 0;
+    while (tick < maxTicks && gameManager.isGameRunning()) {
+      engine.applyCommands(policy.nextCommands(engine));
+      engine.update();
+      tick++;
+    }
+    result.add(gameManager.getScore(), gameManager.getLevel(), tick, !gameManager.isGameRunning());
+  }
+
+  private class Batch extends RecursiveTask<BatchResult> {
+    private final int from;
+    private final int to;
+    private final long baseSeed;
+    private final long maxTicks;
+    private final LongFunction<PlayerPolicy> policies;
+
+    Batch(int from, int to, long baseSeed, long maxTicks, LongFunction<PlayerPolicy> policies) {
+      this.from = from;
+      this.to = to;
+      this.baseSeed = baseSeed;
+      this.maxTicks = maxTicks;
+      this.policies = policies;
+    }
+
+    @Override
+    protected BatchResult compute() {
+      if (to - from <= GAMES_PER_LEAF) {
+        BatchResult result = new BatchResult();
+        for (int i = from; i < to; i++) {
+          long seed = baseSeed + i;
+          play(seed, maxTicks, policies.apply(seed), result);
+        }
+        return result;
+      }
+
+      int middle = (from + to) >>> 1;
+      Batch left = new Batch(from, middle, baseSeed, maxTicks, policies);
+      left.fork();
+      BatchResult right = new Batch(middle, to, baseSeed, maxTicks, policies).compute();
+      return left.join().merge(right);
+    }
+  }
+
+  public static void main(String[] args) {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    String policy = args.length > 1 ? args[1] : "tracker";
+    long maxTicks = args.length > 2 ? Long.parseLong(args[2]) : GameLoop.DEFAULT_TICK_RATE * 600L;
+    int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+    long seed = args.length > 4 ? Long.parseLong(args[4]) : 0L;
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    long start = System.nanoTime();
+    BatchResult result = new BatchRunner(pool).run(games, seed, maxTicks, Policies.byName(policy));
+    long elapsed = System.nanoTime() - start;
+    pool.shutdown();
+
+    System.out.println(result);
+    System.out.printf("%d games, %d ticks in %.1f s on %d threads (%.0f ticks/ms)%n", result.getGames(),
+        result.getTicks(), elapsed / 1e9, parallelism, result.getTicks() * 1e6 / elapsed);
+  }
+}
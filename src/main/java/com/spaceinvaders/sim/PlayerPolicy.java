@@ -0,0 +1,14 @@
+package com.spaceinvaders.sim;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.enums.InputCommand;
+
+// A scripted player. Returns the InputCommand bits to apply on the coming tick.
+// Policies must not touch the engine's own random generator.
+public interface PlayerPolicy {
+  int LEFT = 1 << InputCommand.LEFT.ordinal();
+  int RIGHT = 1 << InputCommand.RIGHT.ordinal();
+  int SHOOT = 1 << InputCommand.SHOOT.ordinal();
+
+  int nextCommands(GameEngine engine);
+}
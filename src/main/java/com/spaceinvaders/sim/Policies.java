@@ -0,0 +1,87 @@
+package com.spaceinvaders.sim;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.entities.Bullet;
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Invader;
+import com.spaceinvaders.entities.Player;
+import com.spaceinvaders.enums.BulletType;
+import java.util.SplittableRandom;
+import java.util.function.LongFunction;
+
+// Built-in policies, each created from a per-game seed
+public final class Policies {
+  private static final int INVADER_BULLET = BulletType.INVADER.ordinal();
+  private static final int DODGE_DISTANCE = 120;
+  private static final int RANDOM_HOLD_TICKS = 20;
+
+  private Policies() {
+  }
+
+  public static LongFunction<PlayerPolicy> byName(String name) {
+    switch (name) {
+      case "idle":
+        return seed -> engine -> 0;
+      case "random":
+        return Policies::random;
+      case "tracker":
+        return seed -> Policies::tracker;
+      default:
+        throw new IllegalArgumentException("Unknown policy: " + name);
+    }
+  }
+
+  // Fires constantly and drifts, picking a new direction every few ticks
+  public static PlayerPolicy random(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int[] state = new int[2];
+    return engine -> {
+      if (state[1]-- <= 0) {
+        state[0] = random.nextInt(3);
+        state[1] = RANDOM_HOLD_TICKS;
+      }
+      return PlayerPolicy.SHOOT | (state[0] == 1 ? PlayerPolicy.LEFT : state[0] == 2 ? PlayerPolicy.RIGHT : 0);
+    };
+  }
+
+  // Steps away from the closest incoming bullet, otherwise lines up under
+  // the lowest invader still above the ship, and fires whenever it can
+  public static int tracker(GameEngine engine) {
+    Player player = engine.getPlayer();
+    if (!player.isActive()) {
+      return 0;
+    }
+    int center = player.getX() + Player.WIDTH / 2;
+
+    EntityStore<Bullet> bullets = engine.getBullets();
+    int threat = -1;
+    int threatY = Integer.MIN_VALUE;
+    for (int i = 0; i < bullets.size(); i++) {
+      if (bullets.isActive(i) && bullets.getType(i) == INVADER_BULLET
+          && bullets.getY(i) > player.getY() - DODGE_DISTANCE && bullets.getY(i) < player.getY()
+          && Math.abs(bullets.getX(i) - center) < Player.WIDTH && bullets.getY(i) > threatY) {
+        threat = i;
+        threatY = bullets.getY(i);
+      }
+    }
+    if (threat >= 0) {
+      boolean roomLeft = player.getX() > Player.WIDTH;
+      return bullets.getX(threat) >= center && roomLeft ? PlayerPolicy.LEFT : PlayerPolicy.RIGHT;
+    }
+
+    EntityStore<Invader> invaders = engine.getInvaders();
+    int target = -1;
+    for (int i = 0; i < invaders.size(); i++) {
+      if (invaders.isActive(i) && invaders.getY(i) < player.getY()
+          && (target < 0 || invaders.getY(i) > invaders.getY(target))) {
+        target = i;
+      }
+    }
+    if (target < 0) {
+      return 0;
+    }
+    int targetX = invaders.getX(target) + invaders.getWidth(target) / 2;
+    int move = targetX < center - 2 ? PlayerPolicy.LEFT : targetX > center + 2 ? PlayerPolicy.RIGHT : 0;
+    return move | PlayerPolicy.SHOOT;
+  }
+}
@@ -1,18 +1,16 @@
 package com.spaceinvaders.strategy;
 
+import com.spaceinvaders.entities.EntityStore;
 import com.spaceinvaders.entities.GameObject;
 
 public class BulletMovement implements MovementStrategy {
-  private int speed;
-  private int direction;
-
-  public BulletMovement(int speed, int direction) {
-    this.speed = speed;
-    this.direction = direction;
-  }
 
   @Override
   public void move(GameObject gameObject) {
-    gameObject.setY(gameObject.getY() + (speed * direction));
+    gameObject.setY(gameObject.getY() + gameObject.getVelocityY());
+  }
+
+  public void moveAll(EntityStore<? extends GameObject> store, TickScale tickScale, long tick) {
+    store.advanceActive(tickScale, tick, 0, 1);
   }
-}
\ No newline at end of file
+}
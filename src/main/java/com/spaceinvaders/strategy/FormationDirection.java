@@ -0,0 +1,28 @@
+package com.spaceinvaders.strategy;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class FormationDirection {
+  private static final Logger LOGGER = Logger.getLogger(FormationDirection.class.getName());
+
+  private int direction = 1;
+
+  public void change() {
+    direction *= -1;
+    LOGGER.log(Level.FINE, "Direction changed to: {0}", direction == 1 ? "RIGHT" : "LEFT");
+  }
+
+  public void reset() {
+    direction = 1;
+    LOGGER.fine("Direction reset to RIGHT");
+  }
+
+  public int get() {
+    return direction;
+  }
+
+  public void set(int direction) {
+    this.direction = direction;
+  }
+}
@@ -1,31 +1,27 @@
 package com.spaceinvaders.strategy;
 
+import com.spaceinvaders.entities.EntityStore;
 import com.spaceinvaders.entities.GameObject;
 
 public class InvaderMovement implements MovementStrategy {
-  private int speed = 1;
-  private static int globalDirection = 1;
+  private final FormationDirection direction;
+  private final TickScale tickScale;
 
-  @Override
-  public void move(GameObject gameObject) {
-    gameObject.setX(gameObject.getX() + (speed * globalDirection));
-  }
-
-  public static void changeGlobalDirection() {
-    globalDirection *= -1;
-    System.out.println("Direction changed to: " + (globalDirection == 1 ? "RIGHT" : "LEFT"));
+  public InvaderMovement(FormationDirection direction, TickScale tickScale) {
+    this.direction = direction;
+    this.tickScale = tickScale;
   }
 
-  public static void resetGlobalDirection() {
-    globalDirection = 1;
-    System.out.println("Direction reset to RIGHT");
+  @Override
+  public void move(GameObject gameObject) {
+    gameObject.setX(gameObject.getX() + (gameObject.getVelocityX() * direction.get()));
   }
 
-  public void setSpeed(int speed) {
-    this.speed = speed;
+  public void move(EntityStore<? extends GameObject> store, int slot, long tick) {
+    store.advance(slot, tickScale, tick, direction.get(), 0);
   }
 
-  public static int getGlobalDirection() {
-    return globalDirection;
+  public void moveAll(EntityStore<? extends GameObject> store, long tick) {
+    store.advanceActive(tickScale, tick, direction.get(), 0);
   }
-}
\ No newline at end of file
+}
@@ -1,7 +1,16 @@
 package com.spaceinvaders.strategy;
 
+import com.spaceinvaders.entities.EntityStore;
 import com.spaceinvaders.entities.GameObject;
 
 public interface MovementStrategy {
   void move(GameObject gameObject);
-}
\ No newline at end of file
+
+  default void moveAll(EntityStore<? extends GameObject> store) {
+    for (int i = 0; i < store.size(); i++) {
+      if (store.isActive(i)) {
+        move(store.get(i));
+      }
+    }
+  }
+}
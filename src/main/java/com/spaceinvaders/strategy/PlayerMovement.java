@@ -3,6 +3,7 @@ package com.spaceinvaders.strategy;
 import com.spaceinvaders.entities.GameObject;
 
 public class PlayerMovement implements MovementStrategy {
+  // px per base tick, see TickScale
   private int speed = 5;
 
   @Override
@@ -10,12 +11,12 @@ public class PlayerMovement implements MovementStrategy {
     // No movement by default, controlled by input
   }
 
-  public void moveLeft(GameObject gameObject) {
-    gameObject.setX(Math.max(0, gameObject.getX() - speed));
+  public void moveLeft(GameObject gameObject, TickScale tickScale, long tick) {
+    gameObject.setX(Math.max(0, gameObject.getX() - tickScale.step(speed, tick)));
   }
 
-  public void moveRight(GameObject gameObject, int screenWidth) {
+  public void moveRight(GameObject gameObject, int screenWidth, TickScale tickScale, long tick) {
     gameObject.setX(Math.min(screenWidth - gameObject.getWidth(),
-        gameObject.getX() + speed));
+        gameObject.getX() + tickScale.step(speed, tick)));
   }
-}
\ No newline at end of file
+}
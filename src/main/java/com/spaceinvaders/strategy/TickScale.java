@@ -0,0 +1,43 @@
+package com.spaceinvaders.strategy;
+
+// Speeds and chances are counted per base tick, the 50 ms step of the original
+// 20 Hz timer, so the game plays the same at any tick rate. By the end of tick
+// t something moving at v has gone floor(t * v * 20 / rate) px, and each tick
+// moves it the difference. That is integer-only, so runs stay deterministic,
+// and at 20 Hz every tick moves exactly v.
+public final class TickScale {
+  public static final int BASE_TICK_RATE = 20;
+
+  private final int ticksPerSecond;
+
+  public TickScale(int ticksPerSecond) {
+    if (ticksPerSecond <= 0) {
+      throw new IllegalArgumentException("Tick rate must be positive: " + ticksPerSecond);
+    }
+    this.ticksPerSecond = ticksPerSecond;
+  }
+
+  // Distance covered at the given speed during tick t, counting from 1
+  public int step(int speed, long tick) {
+    return distance(speed, tick - 1, tick);
+  }
+
+  // Distance covered at the given speed from the end of one tick to the end of another
+  public int distance(int speed, long from, long to) {
+    return (int) (Math.floorDiv(to * speed * BASE_TICK_RATE, ticksPerSecond)
+        - Math.floorDiv(from * speed * BASE_TICK_RATE, ticksPerSecond));
+  }
+
+  // A per-base-tick chance as a per-tick one. Exact for the Poisson rates
+  // FireScheduler draws from, so shots per second stay the same.
+  public double chance(double perBaseTick) {
+    return perBaseTick * BASE_TICK_RATE / ticksPerSecond;
+  }
+
+  // Ticks at this rate lasting as long as the given number of base ticks, at least one
+  public int ticks(int baseTicks) {
+    return Math.max(1, (int) ((long) baseTicks * ticksPerSecond / BASE_TICK_RATE));
+  }
+
+  public int getTicksPerSecond() { return ticksPerSecond; }
+}
@@ -0,0 +1,85 @@
+package com.spaceinvaders.ui;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.enums.RenderLayer;
+import com.spaceinvaders.enums.TickPhase;
+import com.spaceinvaders.metrics.GameMetrics;
+import java.awt.*;
+
+// F4 overlay with the last tick's phase timings and the last frame's layer
+// timings. Showing it turns instrumentation on; hiding it turns it off again
+// unless metrics were enabled at startup.
+public class DebugOverlay {
+  private static final Font FONT = new Font("Monospaced", Font.PLAIN, 11);
+  private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+  private static final int WIDTH = 250;
+  private static final int HEIGHT = 235;
+  private static final int LINE_HEIGHT = 13;
+
+  private final GameEngine gameEngine;
+  private final boolean pinned;
+  private volatile boolean visible;
+  private boolean shown;
+
+  public DebugOverlay(GameEngine gameEngine) {
+    this.gameEngine = gameEngine;
+    this.pinned = gameEngine.getMetrics() != null;
+  }
+
+  public void toggleVisible() {
+    synchronized (gameEngine) {
+      visible = !visible;
+      if (visible && gameEngine.getMetrics() == null) {
+        gameEngine.setMetrics(new GameMetrics());
+      } else if (!visible && !pinned) {
+        gameEngine.setMetrics(null);
+      }
+    }
+  }
+
+  public void addTo(DirtyRegion region, int width, int height) {
+    if (visible || shown) {
+      region.add(width - WIDTH - 5, height - HEIGHT - 5, WIDTH, HEIGHT);
+    }
+    shown = visible;
+  }
+
+  public void draw(Graphics2D g2d, int width, int height) {
+    GameMetrics metrics = gameEngine.getMetrics();
+    if (!visible || metrics == null) {
+      return;
+    }
+    int x = width - WIDTH - 5;
+    int y = height - HEIGHT - 5;
+    g2d.setColor(BACKGROUND);
+    g2d.fillRect(x, y, WIDTH, HEIGHT);
+    g2d.setColor(Color.WHITE);
+    g2d.setFont(FONT);
+
+    x += 8;
+    y += LINE_HEIGHT;
+    g2d.drawString(String.format("tick %8.1f us  p99 %6.1f", metrics.getLastTickNanos() / 1000.0,
+        metrics.getTickP99Micros()), x, y);
+    for (TickPhase phase : TickPhase.values()) {
+      y += LINE_HEIGHT;
+      g2d.drawString(String.format("  %-20s %8.1f", phase.name().toLowerCase(),
+          metrics.getLastPhaseNanos(phase) / 1000.0), x, y);
+    }
+    y += LINE_HEIGHT;
+    g2d.drawString(String.format("frame %7.1f us  p99 %6.1f", metrics.getLastFrameNanos() / 1000.0,
+        metrics.getFrameP99Micros()), x, y);
+    for (RenderLayer layer : RenderLayer.values()) {
+      y += LINE_HEIGHT;
+      g2d.drawString(String.format("  %-20s %8.1f", layer.name().toLowerCase(),
+          metrics.getLastLayerNanos(layer) / 1000.0), x, y);
+    }
+    y += LINE_HEIGHT;
+    g2d.drawString(String.format("inv %d  bul %d  pow %d", metrics.getInvaderCount(),
+        metrics.getBulletCount(), metrics.getPowerUpCount()), x, y);
+    y += LINE_HEIGHT;
+    g2d.drawString(String.format("tests/tick %d  alloc %.0f B/tick", metrics.getCollisionTestsPerTick(),
+        metrics.getAllocatedBytesPerTick()), x, y);
+  }
+
+  public boolean isVisible() { return visible; }
+}
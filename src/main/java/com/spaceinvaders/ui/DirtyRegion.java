@@ -0,0 +1,74 @@
+package com.spaceinvaders.ui;
+
+import com.spaceinvaders.entities.EntityStore;
+import java.awt.*;
+
+public class DirtyRegion {
+  private final Rectangle previous = new Rectangle();
+  private final Rectangle current = new Rectangle();
+  private final Rectangle union = new Rectangle();
+  private int minX;
+  private int minY;
+  private int maxX;
+  private int maxY;
+
+  public DirtyRegion() {
+    clear();
+  }
+
+  public void add(int x, int y, int width, int height) {
+    minX = Math.min(minX, x);
+    minY = Math.min(minY, y);
+    maxX = Math.max(maxX, x + width);
+    maxY = Math.max(maxY, y + height);
+  }
+
+  // An interpolated entity is drawn somewhere between its previous and current
+  // position, so the region spans both. Sprites are one pixel larger than the bounds.
+  public void addMoving(EntityStore<?> store) {
+    for (int i = 0; i < store.size(); i++) {
+      if (!store.isActive(i)) {
+        continue;
+      }
+      int x = store.getX(i);
+      int y = store.getY(i);
+      int prevX = store.getPrevX(i);
+      int prevY = store.getPrevY(i);
+      if (x != prevX || y != prevY) {
+        add(Math.min(x, prevX), Math.min(y, prevY),
+            Math.abs(x - prevX) + store.getWidth(i) + 1,
+            Math.abs(y - prevY) + store.getHeight(i) + 1);
+      }
+    }
+  }
+
+  // Joins this frame's region with the last one so the pixels entities moved
+  // away from (or died on) are cleared as well. The result is reused.
+  public Rectangle flush() {
+    if (minX < maxX && minY < maxY) {
+      current.setBounds(minX, minY, maxX - minX, maxY - minY);
+    } else {
+      current.setBounds(0, 0, 0, 0);
+    }
+
+    if (previous.isEmpty()) {
+      union.setBounds(current);
+    } else if (current.isEmpty()) {
+      union.setBounds(previous);
+    } else {
+      union.setBounds(previous);
+      union.add(current);
+    }
+
+    previous.setBounds(current);
+    clear();
+    return union;
+  }
+
+  private void clear() {
+    minX = Integer.MAX_VALUE;
+    minY = Integer.MAX_VALUE;
+    maxX = Integer.MIN_VALUE;
+    maxY = Integer.MIN_VALUE;
+  }
+}
@@ -0,0 +1,69 @@
+package com.spaceinvaders.ui;
+
+import java.awt.*;
+
+public class FrameStats {
+  private static final Font FONT = new Font("Monospaced", Font.PLAIN, 12);
+  private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+  private static final long WINDOW_NANOS = 500_000_000L;
+
+  private volatile boolean visible;
+  private boolean shown;
+  private long lastFrame;
+  private long windowStart;
+  private int windowFrames;
+  private long windowWorst;
+  private double fps;
+  private double averageFrameMillis;
+  private double worstFrameMillis;
+
+  public void frameRendered(long now) {
+    if (lastFrame != 0) {
+      windowWorst = Math.max(windowWorst, now - lastFrame);
+    } else {
+      windowStart = now;
+    }
+    lastFrame = now;
+    windowFrames++;
+
+    long elapsed = now - windowStart;
+    if (elapsed >= WINDOW_NANOS) {
+      fps = windowFrames * 1_000_000_000.0 / elapsed;
+      averageFrameMillis = elapsed / 1_000_000.0 / windowFrames;
+      worstFrameMillis = windowWorst / 1_000_000.0;
+      windowStart = now;
+      windowFrames = 0;
+      windowWorst = 0;
+    }
+  }
+
+  public void draw(Graphics2D g2d, int width) {
+    if (!visible) {
+      return;
+    }
+    g2d.setColor(BACKGROUND);
+    g2d.fillRect(width - 170, 5, 165, 50);
+    g2d.setColor(Color.WHITE);
+    g2d.setFont(FONT);
+    g2d.drawString(String.format("FPS   %6.1f", fps), width - 160, 20);
+    g2d.drawString(String.format("avg   %6.2f ms", averageFrameMillis), width - 160, 35);
+    g2d.drawString(String.format("worst %6.2f ms", worstFrameMillis), width - 160, 50);
+  }
+
+  // Also marks the frame after hiding, so the panel gets cleared
+  public void addTo(DirtyRegion region, int width) {
+    if (visible || shown) {
+      region.add(width - 170, 5, 165, 50);
+    }
+    shown = visible;
+  }
+
+  public void toggleVisible() {
+    visible = !visible;
+  }
+
+  public boolean isVisible() { return visible; }
+  public double getFps() { return fps; }
+  public double getAverageFrameMillis() { return averageFrameMillis; }
+  public double getWorstFrameMillis() { return worstFrameMillis; }
+}
@@ -0,0 +1,65 @@
+package com.spaceinvaders.ui;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+public class GameCanvas extends Canvas {
+  private static final int CANVAS_WIDTH = 800;
+  private static final int CANVAS_HEIGHT = 600;
+  private static final int BUFFER_COUNT = 3;
+
+  private final GameEngine gameEngine;
+  private final GameLoop gameLoop;
+  private final GameRenderer renderer;
+  private final FrameStats frameStats = new FrameStats();
+  private final DebugOverlay debugOverlay;
+  private BufferStrategy bufferStrategy;
+
+  public GameCanvas(GameEngine gameEngine, int framesPerSecond) {
+    this.gameEngine = gameEngine;
+    this.setPreferredSize(new Dimension(CANVAS_WIDTH, CANVAS_HEIGHT));
+    this.setBackground(Color.BLACK);
+    this.setFocusable(true);
+    this.setIgnoreRepaint(true);
+
+    renderer = new GameRenderer(gameEngine, CANVAS_WIDTH, CANVAS_HEIGHT);
+    debugOverlay = new DebugOverlay(gameEngine);
+    GameInput input = new GameInput(gameEngine, frameStats, debugOverlay);
+    this.addKeyListener(input);
+
+    gameLoop = new GameLoop(gameEngine, GameLoop.DEFAULT_TICK_RATE, framesPerSecond, this::render);
+  }
+
+  // The canvas must be displayable before it can own a buffer strategy
+  public void start() {
+    createBufferStrategy(BUFFER_COUNT);
+    bufferStrategy = getBufferStrategy();
+    requestFocus();
+    gameLoop.start();
+  }
+
+  // Runs on the game loop thread
+  private void render() {
+    do {
+      do {
+        Graphics2D g2d = (Graphics2D) bufferStrategy.getDrawGraphics();
+        try {
+          synchronized (gameEngine) {
+            renderer.draw(g2d, getGraphicsConfiguration(), gameLoop.getInterpolationAlpha());
+          }
+          frameStats.draw(g2d, CANVAS_WIDTH);
+          debugOverlay.draw(g2d, CANVAS_WIDTH, CANVAS_HEIGHT);
+        } finally {
+          g2d.dispose();
+        }
+      } while (bufferStrategy.contentsRestored());
+
+      bufferStrategy.show();
+    } while (bufferStrategy.contentsLost());
+
+    Toolkit.getDefaultToolkit().sync();
+    frameStats.frameRendered(System.nanoTime());
+  }
+}
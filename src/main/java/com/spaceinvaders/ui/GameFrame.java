@@ -1,11 +1,40 @@
 package com.spaceinvaders.ui;
 
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.enums.RenderMode;
+import com.spaceinvaders.net.RemoteGame;
 import javax.swing.*;
+import java.awt.*;
 
 public class GameFrame extends JFrame {
+  private static final int DEFAULT_REFRESH_RATE = 60;
 
   public GameFrame() {
-    this.add(new GamePanel());
+    this(new GameEngine(), RenderMode.PASSIVE, displayRefreshRate(), false);
+  }
+
+  public GameFrame(GameEngine gameEngine, RenderMode renderMode, int frameCap, boolean fullRepaint) {
+    GameCanvas canvas = null;
+    if (renderMode == RenderMode.ACTIVE) {
+      canvas = new GameCanvas(gameEngine, frameCap);
+      this.add(canvas);
+    } else {
+      this.add(new GamePanel(gameEngine, frameCap, fullRepaint));
+    }
+    open();
+
+    if (canvas != null) {
+      canvas.start();
+    }
+  }
+
+  // Networked games always use the Swing panel
+  public GameFrame(RemoteGame remoteGame, int frameCap, boolean fullRepaint) {
+    this.add(new GamePanel(remoteGame, frameCap, fullRepaint));
+    open();
+  }
+
+  private void open() {
     this.setTitle("Space Invaders - Java 21");
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     this.setResizable(false);
@@ -13,4 +42,10 @@ public class GameFrame extends JFrame {
     this.setVisible(true);
     this.setLocationRelativeTo(null);
   }
-}
\ No newline at end of file
+
+  public static int displayRefreshRate() {
+    int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+        .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+    return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : refreshRate;
+  }
+}
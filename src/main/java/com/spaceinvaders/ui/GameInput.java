@@ -0,0 +1,77 @@
+package com.spaceinvaders.ui;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.enums.InputCommand;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+
+public class GameInput extends KeyAdapter {
+  private final GameEngine gameEngine;
+  private final FrameStats frameStats;
+  private final DebugOverlay debugOverlay;
+  // Only touched on the EDT; the engine sees commands through its input queue
+  private final boolean[] keys = new boolean[256];
+  private final int[] heldKeys = new int[InputCommand.values().length];
+
+  public GameInput(GameEngine gameEngine, FrameStats frameStats, DebugOverlay debugOverlay) {
+    this.gameEngine = gameEngine;
+    this.frameStats = frameStats;
+    this.debugOverlay = debugOverlay;
+  }
+
+  private static InputCommand commandFor(int keyCode) {
+    switch (keyCode) {
+      case KeyEvent.VK_A:
+      case KeyEvent.VK_LEFT:
+        return InputCommand.LEFT;
+      case KeyEvent.VK_D:
+      case KeyEvent.VK_RIGHT:
+        return InputCommand.RIGHT;
+      case KeyEvent.VK_SPACE:
+        return InputCommand.SHOOT;
+      case KeyEvent.VK_R:
+        return InputCommand.RESTART;
+      default:
+        return null;
+    }
+  }
+
+  // Auto-repeat is ignored and a command is only queued when the first of its
+  // keys goes down or the last one comes up
+  private void setKey(int keyCode, boolean down) {
+    if (keyCode >= keys.length || keys[keyCode] == down) {
+      return;
+    }
+    keys[keyCode] = down;
+
+    InputCommand command = commandFor(keyCode);
+    if (command != null) {
+      int held = heldKeys[command.ordinal()] += down ? 1 : -1;
+      if (held == (down ? 1 : 0)) {
+        gameEngine.submitInput(command, down);
+      }
+    }
+  }
+
+  @Override
+  public void keyPressed(KeyEvent e) {
+    setKey(e.getKeyCode(), true);
+
+    if (e.getKeyCode() == KeyEvent.VK_Q) {
+      System.exit(0);
+    }
+
+    if (e.getKeyCode() == KeyEvent.VK_F3) {
+      frameStats.toggleVisible();
+    }
+
+    if (e.getKeyCode() == KeyEvent.VK_F4) {
+      debugOverlay.toggleVisible();
+    }
+  }
+
+  @Override
+  public void keyReleased(KeyEvent e) {
+    setKey(e.getKeyCode(), false);
+  }
+}
@@ -0,0 +1,237 @@
+package com.spaceinvaders.ui;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.entities.*;
+import com.spaceinvaders.enums.RenderLayer;
+import com.spaceinvaders.metrics.GameMetrics;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class GameRenderer {
+  private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 48);
+  private static final Font BANNER_FONT = new Font("Arial", Font.BOLD, 36);
+  private static final Font SUBTITLE_FONT = new Font("Arial", Font.BOLD, 24);
+  private static final Font DETAIL_FONT = new Font("Arial", Font.BOLD, 18);
+  private static final Font PROMPT_FONT = new Font("Arial", Font.PLAIN, 16);
+  private static final Color LEVEL_COMPLETE_TINT = new Color(0, 255, 0, 100);
+  private static final Color GAME_OVER_TINT = new Color(0, 0, 0, 150);
+
+  private final GameEngine gameEngine;
+  private final int width;
+  private final int height;
+  private SpriteCache sprites;
+  private HudCache hud;
+  private BufferedImage background;
+  private boolean overlayShown;
+  private double alpha;
+
+  public GameRenderer(GameEngine gameEngine, int width, int height) {
+    this.gameEngine = gameEngine;
+    this.width = width;
+    this.height = height;
+  }
+
+  public void draw(Graphics g, GraphicsConfiguration config, double alpha) {
+    Graphics2D g2d = (Graphics2D) g;
+    g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    if (sprites == null) {
+      sprites = new SpriteCache(config);
+      hud = new HudCache(sprites);
+      background = createBackground(config);
+    }
+    this.alpha = alpha;
+
+    GameMetrics metrics = gameEngine.getMetrics();
+    if (metrics != null) {
+      drawInstrumented(g2d, metrics);
+      return;
+    }
+
+    g2d.drawImage(background, 0, 0, null);
+    drawPlayer(g2d);
+    drawInvaders(g2d);
+    drawBullets(g2d);
+    drawPowerUps(g2d);
+    drawUI(g2d);
+  }
+
+  private void drawInstrumented(Graphics2D g2d, GameMetrics metrics) {
+    long start = System.nanoTime();
+    g2d.drawImage(background, 0, 0, null);
+    long t = metrics.layer(RenderLayer.BACKGROUND, start);
+    drawPlayer(g2d);
+    t = metrics.layer(RenderLayer.PLAYER, t);
+    drawInvaders(g2d);
+    t = metrics.layer(RenderLayer.INVADERS, t);
+    drawBullets(g2d);
+    t = metrics.layer(RenderLayer.BULLETS, t);
+    drawPowerUps(g2d);
+    t = metrics.layer(RenderLayer.POWER_UPS, t);
+    drawUI(g2d);
+    metrics.layer(RenderLayer.UI, t);
+    metrics.endFrame(start);
+  }
+
+  private BufferedImage createBackground(GraphicsConfiguration config) {
+    BufferedImage image = config != null
+        ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+        : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = image.createGraphics();
+    g2d.setColor(Color.BLACK);
+    g2d.fillRect(0, 0, width, height);
+    hud.drawHelp(g2d, height);
+    g2d.dispose();
+    return image;
+  }
+
+  // Collects what changed since the last frame. Returns null when the whole
+  // area has to be redrawn, e.g. while a full-screen overlay comes or goes.
+  public Rectangle collectDirtyRegion(DirtyRegion region) {
+    GameManager gm = gameEngine.getGameManager();
+    EntityStore<Player> players = gameEngine.getPlayers();
+    for (int i = 0; i < players.size(); i++) {
+      if (players.isActive(i)) {
+        // Health bar sits 10px above the ship
+        int x = players.getX(i);
+        int prevX = players.getPrevX(i);
+        region.add(Math.min(x, prevX), players.getY(i) - 10,
+            Math.abs(x - prevX) + Player.WIDTH + 1, Player.HEIGHT + 11);
+      }
+    }
+    region.addMoving(gameEngine.getInvaders());
+    region.addMoving(gameEngine.getBullets());
+    region.addMoving(gameEngine.getPowerUps());
+
+    if (hud == null || !hud.isCurrent(gm.getScore(), gm.getLives(), gm.getLevel(),
+        gameEngine.getInvaders().getLiveCount())) {
+      region.add(0, 0, HudCache.STATS_WIDTH, HudCache.STATS_HEIGHT);
+    }
+
+    Rectangle dirty = region.flush();
+    boolean overlay = !gm.isGameRunning() || gm.isLevelTransition();
+    boolean full = hud == null || overlay || overlayShown;
+    overlayShown = overlay;
+    return full ? null : dirty;
+  }
+
+  private void drawPlayer(Graphics2D g2d) {
+    EntityStore<Player> players = gameEngine.getPlayers();
+    for (int i = 0; i < players.size(); i++) {
+      if (players.isActive(i)) {
+        Player player = players.get(i);
+        int x = (int) player.getRenderX(alpha);
+        int y = (int) player.getRenderY(alpha);
+        g2d.drawImage(sprites.getPlayer(), x, y, null);
+
+        drawHealthBar(g2d, player, x, y - 10);
+      }
+    }
+  }
+
+  private void drawHealthBar(Graphics2D g2d, Player player, int x, int y) {
+    int barWidth = 40;
+    int barHeight = 4;
+
+    g2d.setColor(Color.RED);
+    g2d.fillRect(x, y, barWidth, barHeight);
+
+    g2d.setColor(Color.GREEN);
+    int healthWidth = (int) ((player.getHealth() / 100.0) * barWidth);
+    g2d.fillRect(x, y, healthWidth, barHeight);
+
+    g2d.setColor(Color.WHITE);
+    g2d.drawRect(x, y, barWidth, barHeight);
+  }
+
+  private void drawInvaders(Graphics2D g2d) {
+    EntityStore<Invader> invaders = gameEngine.getInvaders();
+    for (int i = 0; i < invaders.size(); i++) {
+      if (invaders.isActive(i)) {
+        Invader invader = invaders.get(i);
+        g2d.drawImage(sprites.getInvader(invaders.getType(i)),
+            (int) invader.getRenderX(alpha), (int) invader.getRenderY(alpha), null);
+      }
+    }
+  }
+
+  private void drawBullets(Graphics2D g2d) {
+    EntityStore<Bullet> bullets = gameEngine.getBullets();
+    for (int i = 0; i < bullets.size(); i++) {
+      if (bullets.isActive(i)) {
+        Bullet bullet = bullets.get(i);
+        g2d.drawImage(sprites.getBullet(bullets.getType(i)),
+            (int) bullet.getRenderX(alpha), (int) bullet.getRenderY(alpha), null);
+      }
+    }
+  }
+
+  private void drawPowerUps(Graphics2D g2d) {
+    EntityStore<PowerUp> powerUps = gameEngine.getPowerUps();
+    for (int i = 0; i < powerUps.size(); i++) {
+      if (powerUps.isActive(i)) {
+        PowerUp powerUp = powerUps.get(i);
+        g2d.drawImage(sprites.getPowerUp(powerUps.getType(i)),
+            (int) powerUp.getRenderX(alpha), (int) powerUp.getRenderY(alpha), null);
+      }
+    }
+  }
+
+  private void drawUI(Graphics2D g2d) {
+    GameManager gm = gameEngine.getGameManager();
+    hud.draw(g2d, gm.getScore(), gm.getLives(), gm.getLevel(),
+        gameEngine.getInvaders().getLiveCount());
+
+    if (gm.isLevelTransition() && gm.isGameRunning()) {
+      drawLevelComplete(g2d);
+    }
+
+    if (!gm.isGameRunning()) {
+      drawGameOver(g2d);
+    }
+  }
+
+  private void drawLevelComplete(Graphics2D g2d) {
+    g2d.setColor(LEVEL_COMPLETE_TINT);
+    g2d.fillRect(0, 0, width, height);
+
+    g2d.setColor(Color.WHITE);
+    g2d.setFont(BANNER_FONT);
+    String levelComplete = "LEVEL COMPLETE!";
+    FontMetrics fm = g2d.getFontMetrics();
+    int x = (width - fm.stringWidth(levelComplete)) / 2;
+    int y = height / 2;
+    g2d.drawString(levelComplete, x, y);
+
+    g2d.setFont(DETAIL_FONT);
+    String nextLevel = "Preparing Level " + gameEngine.getGameManager().getLevel() + "...";
+    fm = g2d.getFontMetrics();
+    x = (width - fm.stringWidth(nextLevel)) / 2;
+    g2d.drawString(nextLevel, x, y + 50);
+  }
+
+  private void drawGameOver(Graphics2D g2d) {
+    g2d.setColor(GAME_OVER_TINT);
+    g2d.fillRect(0, 0, width, height);
+
+    g2d.setColor(Color.WHITE);
+    g2d.setFont(TITLE_FONT);
+    String gameOver = "GAME OVER";
+    FontMetrics fm = g2d.getFontMetrics();
+    int x = (width - fm.stringWidth(gameOver)) / 2;
+    int y = height / 2;
+    g2d.drawString(gameOver, x, y);
+
+    g2d.setFont(SUBTITLE_FONT);
+    String score = "Final Score: " + gameEngine.getGameManager().getScore();
+    fm = g2d.getFontMetrics();
+    x = (width - fm.stringWidth(score)) / 2;
+    g2d.drawString(score, x, y + 60);
+
+    g2d.setFont(PROMPT_FONT);
+    String restart = "Press R to restart or Q to quit";
+    fm = g2d.getFontMetrics();
+    x = (width - fm.stringWidth(restart)) / 2;
+    g2d.drawString(restart, x, y + 100);
+  }
+}
@@ -0,0 +1,70 @@
+package com.spaceinvaders.ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class HudCache {
+  public static final Font HUD_FONT = new Font("Arial", Font.BOLD, 16);
+  public static final Font HELP_FONT = new Font("Arial", Font.PLAIN, 12);
+
+  static final int STATS_WIDTH = 240;
+  static final int STATS_HEIGHT = 95;
+  private static final String HELP_TEXT = "WASD to move, SPACE to shoot, Q to quit";
+
+  private final BufferedImage stats;
+
+  private int score = -1;
+  private int lives = -1;
+  private int level = -1;
+  private int invaders = -1;
+
+  public HudCache(SpriteCache sprites) {
+    this.stats = sprites.createImage(STATS_WIDTH, STATS_HEIGHT);
+  }
+
+  // The help line never changes, so it is baked into the background layer
+  public void drawHelp(Graphics2D g2d, int panelHeight) {
+    g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    g2d.setColor(Color.WHITE);
+    g2d.setFont(HELP_FONT);
+    g2d.drawString(HELP_TEXT, 10, panelHeight - 10);
+  }
+
+  private Graphics2D begin(BufferedImage image) {
+    Graphics2D g2d = image.createGraphics();
+    g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    g2d.setColor(Color.WHITE);
+    return g2d;
+  }
+
+  // The stats image is only re-rendered on the frames where a value changed
+  public void draw(Graphics2D g2d, int score, int lives, int level, int invaders) {
+    if (!isCurrent(score, lives, level, invaders)) {
+      this.score = score;
+      this.lives = lives;
+      this.level = level;
+      this.invaders = invaders;
+      renderStats();
+    }
+
+    g2d.drawImage(stats, 0, 0, null);
+  }
+
+  public boolean isCurrent(int score, int lives, int level, int invaders) {
+    return score == this.score && lives == this.lives && level == this.level && invaders == this.invaders;
+  }
+
+  private void renderStats() {
+    Graphics2D g2d = begin(stats);
+    g2d.setComposite(AlphaComposite.Clear);
+    g2d.fillRect(0, 0, STATS_WIDTH, STATS_HEIGHT);
+    g2d.setComposite(AlphaComposite.SrcOver);
+
+    g2d.setFont(HUD_FONT);
+    g2d.drawString("Score: " + score, 10, 25);
+    g2d.drawString("Lives: " + lives, 10, 45);
+    g2d.drawString("Level: " + level, 10, 65);
+    g2d.drawString("Invaders: " + invaders, 10, 85);
+    g2d.dispose();
+  }
+}
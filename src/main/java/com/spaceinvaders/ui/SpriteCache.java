@@ -0,0 +1,131 @@
+package com.spaceinvaders.ui;
+
+import com.spaceinvaders.entities.*;
+import com.spaceinvaders.enums.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class SpriteCache {
+  public static final Font SYMBOL_FONT = new Font("Arial", Font.BOLD, 12);
+
+  private final GraphicsConfiguration config;
+  private final BufferedImage player;
+  private final BufferedImage[] invaders = new BufferedImage[InvaderType.values().length];
+  private final BufferedImage[] bullets = new BufferedImage[BulletType.values().length];
+  private final BufferedImage[] powerUps = new BufferedImage[PowerUpType.values().length];
+
+  public SpriteCache(GraphicsConfiguration config) {
+    this.config = config;
+    player = createPlayer();
+    for (InvaderType type : InvaderType.values()) {
+      invaders[type.ordinal()] = createInvader(type);
+    }
+    for (BulletType type : BulletType.values()) {
+      bullets[type.ordinal()] = createBullet(type);
+    }
+    for (PowerUpType type : PowerUpType.values()) {
+      powerUps[type.ordinal()] = createPowerUp(type);
+    }
+  }
+
+  public BufferedImage getPlayer() { return player; }
+  public BufferedImage getInvader(int typeOrdinal) { return invaders[typeOrdinal]; }
+  public BufferedImage getBullet(int typeOrdinal) { return bullets[typeOrdinal]; }
+  public BufferedImage getPowerUp(int typeOrdinal) { return powerUps[typeOrdinal]; }
+
+  // Outlines are drawn one pixel past the entity bounds, so sprites are one pixel larger
+  BufferedImage createImage(int width, int height) {
+    if (config != null) {
+      return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+    return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+  }
+
+  private Graphics2D begin(BufferedImage image) {
+    Graphics2D g2d = image.createGraphics();
+    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    return g2d;
+  }
+
+  private BufferedImage createPlayer() {
+    int w = Player.WIDTH;
+    int h = Player.HEIGHT;
+    BufferedImage image = createImage(w + 1, h + 1);
+    Graphics2D g2d = begin(image);
+
+    int[] xPoints = {w/2, 0, w/4, 3*w/4, w};
+    int[] yPoints = {0, h, 3*h/4, 3*h/4, h};
+    g2d.setColor(Color.CYAN);
+    g2d.fillPolygon(xPoints, yPoints, 5);
+    g2d.setColor(Color.WHITE);
+    g2d.drawPolygon(xPoints, yPoints, 5);
+
+    g2d.dispose();
+    return image;
+  }
+
+  private BufferedImage createInvader(InvaderType type) {
+    int w = Invader.WIDTH;
+    int h = Invader.HEIGHT;
+    BufferedImage image = createImage(w + 1, h + 1);
+    Graphics2D g2d = begin(image);
+
+    Color color = switch (type) {
+      case BASIC -> Color.GREEN;
+      case MEDIUM -> Color.YELLOW;
+      case FAST -> Color.RED;
+    };
+    g2d.setColor(color);
+    g2d.fillRect(5, 0, w - 10, h/3);
+    g2d.fillRect(0, h/3, w, h/3);
+    g2d.fillRect(3, 2*h/3, 6, h/3);
+    g2d.fillRect(w - 9, 2*h/3, 6, h/3);
+
+    g2d.setColor(Color.WHITE);
+    g2d.drawRect(0, 0, w, h);
+
+    g2d.dispose();
+    return image;
+  }
+
+  private BufferedImage createBullet(BulletType type) {
+    BufferedImage image = createImage(Bullet.WIDTH, Bullet.HEIGHT);
+    Graphics2D g2d = begin(image);
+
+    g2d.setColor(type == BulletType.PLAYER ? Color.CYAN : Color.RED);
+    g2d.fillOval(0, 0, Bullet.WIDTH, Bullet.HEIGHT);
+
+    g2d.dispose();
+    return image;
+  }
+
+  private BufferedImage createPowerUp(PowerUpType type) {
+    int w = PowerUp.WIDTH;
+    int h = PowerUp.HEIGHT;
+    BufferedImage image = createImage(w + 1, h + 1);
+    Graphics2D g2d = begin(image);
+
+    Color color = switch (type) {
+      case HEALTH -> Color.GREEN;
+      case FIRE_RATE -> Color.ORANGE;
+      case EXTRA_LIFE -> Color.MAGENTA;
+    };
+    g2d.setColor(color);
+    g2d.fillOval(0, 0, w, h);
+    g2d.setColor(Color.WHITE);
+    g2d.drawOval(0, 0, w, h);
+
+    String symbol = switch (type) {
+      case HEALTH -> "+";
+      case FIRE_RATE -> "F";
+      case EXTRA_LIFE -> "L";
+    };
+    g2d.setFont(SYMBOL_FONT);
+    FontMetrics fm = g2d.getFontMetrics();
+    g2d.drawString(symbol, (w - fm.stringWidth(symbol)) / 2, (h + fm.getAscent()) / 2);
+
+    g2d.dispose();
+    return image;
+  }
+}
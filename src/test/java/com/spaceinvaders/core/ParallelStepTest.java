@@ -0,0 +1,131 @@
+package com.spaceinvaders.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spaceinvaders.entities.Bullet;
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Invader;
+import com.spaceinvaders.enums.BulletType;
+import com.spaceinvaders.enums.CollisionMode;
+import com.spaceinvaders.enums.GameEventType;
+import com.spaceinvaders.factory.EntityFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+// A formation and a bullet cloud big enough for every fork-join pass, run once
+// sequentially and once on a pool. The two must stay byte-identical every tick.
+class ParallelStepTest {
+  private static final int INVADERS = 10000;
+  private static final int BULLETS_PER_TICK = 20;
+  // Player bullets start on columns this far apart
+  private static final int COLUMN = 8;
+  // Per base tick; at 60 Hz the fast ones move further than the rows are apart
+  private static final int SLOW_SPEED = 8;
+  private static final int FAST_SPEED = 160;
+  // How far into the formation the lowest player bullets start
+  private static final int REACH = 60;
+  private static final int TICKS = 60;
+  // Brute force only differs from the grid in the sequential collision pass
+  private static final CollisionMode[] MODES = {CollisionMode.GRID, CollisionMode.SWEEP_AND_PRUNE};
+
+  @Test
+  void parallelTicksMatchSequentialOnes() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (CollisionMode mode : MODES) {
+        for (long seed = 0; seed < 2; seed++) {
+          runAndCompare(mode, seed, pool);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static void runAndCompare(CollisionMode mode, long seed, ForkJoinPool pool) {
+    GameEngine sequential = engine(mode, seed);
+    GameEngine parallel = engine(mode, seed);
+    parallel.setParallelPool(pool);
+    int[] kills = new int[1];
+    parallel.getEvents().subscribe(event -> {
+      if (GameEvents.typeOf(event) == GameEventType.INVADER_KILLED) kills[0]++;
+    });
+
+    GameRandom random = new GameRandom(seed ^ 0xB0B);
+    spawnBullets(sequential, parallel, random, ParallelStep.MIN_ENTITIES, 2 * ParallelStep.MIN_SWEEPERS);
+    for (int tick = 1; tick <= TICKS; tick++) {
+      spawnBullets(sequential, parallel, random, BULLETS_PER_TICK, BULLETS_PER_TICK);
+      assertLargeEnough(parallel, tick);
+      sequential.update();
+      parallel.update();
+      assertArrayEquals(state(sequential), state(parallel),
+          mode + " parallel differs from sequential at tick " + tick + ", seed " + seed);
+    }
+    assertTrue(kills[0] > 0, mode + " killed no invaders");
+  }
+
+  private static GameEngine engine(CollisionMode mode, long seed) {
+    GameEngine engine = HeadlessGame.withFormation(seed, INVADERS).getEngine();
+    engine.setCollisionMode(mode);
+    return engine;
+  }
+
+  // The same bullets in both engines. Invader bullets fill the store from
+  // the formation up, where they cannot hit anything; player bullets start
+  // from its bottom rows down and reach it over the run. They come in pairs on
+  // the same spot, and some are fast enough to cross several rows in a tick,
+  // so the second one's precomputed hit has been taken by the first and the
+  // next one up is found again among the rest.
+  private static void spawnBullets(GameEngine a, GameEngine b, GameRandom random, int invaderBullets,
+                                   int playerBullets) {
+    int width = a.getScreenWidth();
+    int height = a.getScreenHeight();
+    int bottom = formationBottom(a);
+    for (int i = 0; i < invaderBullets + playerBullets; i++) {
+      boolean invaderBullet = i < invaderBullets;
+      int speed = random.nextInt(4) == 0 ? FAST_SPEED : SLOW_SPEED;
+      int x = random.nextInt(width / COLUMN) * COLUMN;
+      int y = invaderBullet
+          ? random.nextInt(bottom - REACH)
+          : bottom - REACH + random.nextInt(height - bottom + REACH);
+      for (GameEngine engine : new GameEngine[] {a, b}) {
+        if (invaderBullet) {
+          EntityFactory.createInvaderBullet(engine.getBullets(), x, y);
+        } else {
+          EntityFactory.createPlayerBullet(engine.getBullets(), x, y).setVelocity(0, -speed);
+          EntityFactory.createPlayerBullet(engine.getBullets(), x, y).setVelocity(0, -speed);
+        }
+      }
+    }
+  }
+
+  private static int formationBottom(GameEngine engine) {
+    EntityStore<Invader> invaders = engine.getInvaders();
+    int bottom = 0;
+    for (int i = 0; i < invaders.size(); i++) {
+      if (invaders.isActive(i)) bottom = Math.max(bottom, invaders.getY(i) + invaders.getHeight(i));
+    }
+    return bottom;
+  }
+
+  // Every parallel pass runs only above its threshold
+  private static void assertLargeEnough(GameEngine engine, int tick) {
+    EntityStore<Bullet> bullets = engine.getBullets();
+    int sweepers = 0;
+    for (int b = 0; b < bullets.size(); b++) {
+      if (bullets.isActive(b) && bullets.getType(b) == BulletType.PLAYER.ordinal()) sweepers++;
+    }
+    assertTrue(engine.getInvaders().size() >= ParallelStep.MIN_ENTITIES, "Too few invaders at tick " + tick);
+    assertTrue(bullets.size() >= ParallelStep.MIN_ENTITIES, "Too few bullets at tick " + tick);
+    assertTrue(sweepers >= ParallelStep.MIN_SWEEPERS, "Too few player bullets at tick " + tick);
+  }
+
+  private static byte[] state(GameEngine engine) {
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 22);
+    engine.writeState(buffer);
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+}
@@ -0,0 +1,105 @@
+package com.spaceinvaders.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.spaceinvaders.entities.Bullet;
+import com.spaceinvaders.entities.EntityStore;
+import com.spaceinvaders.entities.Invader;
+import com.spaceinvaders.entities.Player;
+import com.spaceinvaders.enums.CollisionMode;
+import com.spaceinvaders.factory.EntityFactory;
+import com.spaceinvaders.level.LevelParser;
+import com.spaceinvaders.level.LevelSet;
+import com.spaceinvaders.strategy.TickScale;
+import org.junit.jupiter.api.Test;
+
+// Fires single bullets at a stationary target for every speed up to the
+// maximum, from every starting phase and a spread of columns, and counts the
+// ones that passed through (tunnelled) or hit from a column that does not
+// overlap (false hits). Both must be zero in every collision mode.
+class TunnellingTest {
+  private static final int MAX_SPEED = 64;
+  // Just big enough for the invader and the player, so engines are cheap to build
+  private static final int SCREEN_WIDTH = 300;
+  private static final int SCREEN_HEIGHT = 200;
+  // One invader that never fires, so only the test's bullet is in flight
+  private static final LevelSet TARGET = LevelParser.parse("""
+      type B BASIC 10 0
+      speed 1 0 1
+      wave
+      B
+      """);
+
+  @Test
+  void noBulletTunnelsOrHitsFalsely() {
+    for (CollisionMode mode : CollisionMode.values()) {
+      long tunnelled = 0;
+      long falseHits = 0;
+      for (int speed = 1; speed <= MAX_SPEED; speed++) {
+        for (int phase = 0; phase < speed; phase++) {
+          for (int offset = -Bullet.WIDTH; offset <= Invader.WIDTH; offset++) {
+            boolean expected = offset > -Bullet.WIDTH && offset < Invader.WIDTH;
+            if (shootInvader(mode, speed, phase, offset) != expected) {
+              if (expected) tunnelled++; else falseHits++;
+            }
+          }
+          for (int offset = -Bullet.WIDTH; offset <= Player.WIDTH; offset++) {
+            boolean expected = offset > -Bullet.WIDTH && offset < Player.WIDTH;
+            if (shootPlayer(mode, speed, phase, offset) != expected) {
+              if (expected) tunnelled++; else falseHits++;
+            }
+          }
+        }
+      }
+      assertEquals(0, tunnelled, mode + " bullets tunnelled");
+      assertEquals(0, falseHits, mode + " false hits");
+    }
+  }
+
+  // At the base rate a bullet moves exactly its speed every tick
+  private static GameEngine newEngine(CollisionMode mode) {
+    GameEngine engine = new GameEngine(new GameManager(), new TickClock(TickScale.BASE_TICK_RATE), 0L,
+        SCREEN_WIDTH, SCREEN_HEIGHT, TARGET);
+    engine.setCollisionMode(mode);
+    engine.getInvaders().get(0).setVelocity(0, 0);
+    return engine;
+  }
+
+  // A player bullet starting just below the invader. The kill is read from the
+  // score, since a slow bullet takes long enough for the next level to spawn.
+  private static boolean shootInvader(CollisionMode mode, int speed, int phase, int offset) {
+    GameEngine engine = newEngine(mode);
+    EntityStore<Invader> invaders = engine.getInvaders();
+    int x = invaders.getX(0);
+    int y = invaders.getY(0);
+
+    Bullet bullet = EntityFactory.createPlayerBullet(engine.getBullets(), x + offset, y + Invader.HEIGHT + phase);
+    bullet.setVelocity(0, -speed);
+    run(engine, ticksToPass(speed, phase, Invader.HEIGHT));
+    return engine.getGameManager().getScore() > 0;
+  }
+
+  // An invader bullet starting just above the player
+  private static boolean shootPlayer(CollisionMode mode, int speed, int phase, int offset) {
+    GameEngine engine = newEngine(mode);
+    Player player = engine.getPlayer();
+    int health = player.getHealth();
+
+    Bullet bullet = EntityFactory.createInvaderBullet(engine.getBullets(), player.getX() + offset,
+        player.getY() - Bullet.HEIGHT - phase);
+    bullet.setVelocity(0, speed);
+    run(engine, ticksToPass(speed, phase, Player.HEIGHT));
+    return player.getHealth() < health;
+  }
+
+  private static void run(GameEngine engine, int ticks) {
+    for (int i = 0; i < ticks; i++) {
+      engine.update();
+    }
+  }
+
+  // Enough ticks for the bullet to clear the far side of the target
+  private static int ticksToPass(int speed, int phase, int targetHeight) {
+    return (phase + Bullet.HEIGHT + targetHeight) / speed + 2;
+  }
+}
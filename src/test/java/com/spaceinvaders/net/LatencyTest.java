@@ -0,0 +1,76 @@
+package com.spaceinvaders.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.metrics.Histogram;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+// RemoteGames behind a LagProxy with 50 ms each way, half of them predicting.
+// Reconciliation and interpolation must keep every mirror exact, and
+// prediction must show a press sooner than waiting for the server does.
+class LatencyTest {
+  private static final int CLIENTS = 4;
+  private static final int LATENCY_MILLIS = 50;
+  private static final int JITTER_MILLIS = 10;
+  private static final double LOSS = 0.01;
+  private static final int TICKS = 480;
+  private static final int TICKS_PER_SECOND = GameLoop.DEFAULT_TICK_RATE;
+
+  @Test
+  void predictionHidesTheRoundTrip() throws IOException, InterruptedException {
+    GameServer server = new GameServer(0, TICKS_PER_SECOND, CLIENTS);
+    Thread serverThread = new Thread(server, "game-server");
+    serverThread.start();
+    LagProxy proxy = new LagProxy(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()),
+        LATENCY_MILLIS, JITTER_MILLIS, LOSS, 42);
+    Thread proxyThread = new Thread(proxy, "lag-proxy");
+    proxyThread.start();
+
+    InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), proxy.getPort());
+    LatencyHarness.Bot[] bots = new LatencyHarness.Bot[CLIENTS];
+    Histogram predicted = new Histogram();
+    Histogram unpredicted = new Histogram();
+    try {
+      for (int i = 0; i < CLIENTS; i++) {
+        RemoteGame game = RemoteGame.connect(address, i, RemoteGame.DEFAULT_INTERPOLATION_TICKS);
+        game.setPrediction(i % 2 == 0);
+        bots[i] = new LatencyHarness.Bot(game, i);
+      }
+
+      long period = 1_000_000_000L / TICKS_PER_SECOND;
+      long next = System.nanoTime();
+      for (int tick = 0; tick < TICKS; tick++) {
+        for (LatencyHarness.Bot bot : bots) {
+          bot.press();
+          bot.game.tick();
+          bot.observe(bot.game.isPrediction() ? predicted : unpredicted);
+        }
+        next += period;
+        LockSupport.parkNanos(next - System.nanoTime());
+      }
+    } finally {
+      server.close();
+      proxy.close();
+      serverThread.join();
+      proxyThread.join();
+    }
+
+    for (int i = 0; i < CLIENTS; i++) {
+      RemoteGame game = bots[i].game;
+      assertFalse(game.isDisconnected(), "Client " + i + " lost its connection");
+      assertTrue(game.getClient().getSnapshots() > 0, "Client " + i + " got no snapshots");
+      assertEquals(0, game.getClient().getMismatches(), "Client " + i + " checksum mismatches");
+      game.close();
+    }
+    assertTrue(predicted.getTotalCount() > 0 && unpredicted.getTotalCount() > 0, "No presses were seen");
+    assertTrue(predicted.getMean() < unpredicted.getMean(),
+        "Predicted latency " + predicted.getMean() + " ticks, unpredicted " + unpredicted.getMean());
+  }
+}
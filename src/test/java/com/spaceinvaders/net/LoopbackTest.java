@@ -0,0 +1,102 @@
+package com.spaceinvaders.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameRandom;
+import com.spaceinvaders.enums.InputCommand;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+// A GameServer and full sessions of GameClients over loopback, every client
+// holding random keys. Each must be welcomed, keep its connection and mirror
+// every snapshot exactly; LoopbackHarness runs the same at load.
+class LoopbackTest {
+  private static final int SESSIONS = 4;
+  private static final int TICKS = 300;
+  private static final int TICKS_PER_SECOND = GameLoop.DEFAULT_TICK_RATE;
+  private static final int SHOOT = 1 << InputCommand.SHOOT.ordinal();
+  private static final int RESTART = 1 << InputCommand.RESTART.ordinal();
+
+  @Test
+  void clientsMirrorTheServerExactly() throws IOException, InterruptedException {
+    GameServer server = new GameServer(0, TICKS_PER_SECOND, SESSIONS);
+    Thread serverThread = new Thread(server, "game-server");
+    serverThread.start();
+
+    InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    List<GameClient> clients = new ArrayList<>();
+    int failed = 0;
+    try (Selector selector = Selector.open()) {
+      for (int session = 0; session < SESSIONS; session++) {
+        for (int p = 0; p < GameEngine.MAX_PLAYERS; p++) {
+          clients.add(GameClient.connect(selector, address, session));
+        }
+      }
+
+      GameRandom random = new GameRandom(42);
+      long period = 1_000_000_000L / TICKS_PER_SECOND;
+      long nextInput = System.nanoTime();
+      for (int tick = 0; tick < TICKS; ) {
+        long wait = nextInput - System.nanoTime();
+        if (wait > 0) {
+          selector.select(Math.max(1, wait / 1_000_000));
+        } else {
+          selector.selectNow();
+        }
+
+        Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+        while (selected.hasNext()) {
+          SelectionKey key = selected.next();
+          selected.remove();
+          GameClient client = (GameClient) key.attachment();
+          try {
+            client.handle(key);
+          } catch (IOException e) {
+            client.close();
+            failed++;
+          }
+        }
+
+        if (System.nanoTime() >= nextInput) {
+          for (GameClient client : clients) {
+            if (client.isWelcomed() && random.nextInt(8) == 0) {
+              int commands = 1 << (InputCommand.LEFT.ordinal() + random.nextInt(2))
+                  | (random.nextInt(2) == 0 ? SHOOT : 0);
+              if (!client.getWorld().isGameRunning()) {
+                commands |= RESTART;
+              }
+              client.sendInput(commands);
+            }
+          }
+          nextInput += period;
+          tick++;
+        }
+      }
+    } finally {
+      server.close();
+      serverThread.join();
+      for (GameClient client : clients) {
+        client.close();
+      }
+    }
+
+    assertEquals(0, failed, "Clients lost their connection");
+    for (int i = 0; i < clients.size(); i++) {
+      GameClient client = clients.get(i);
+      assertTrue(client.isWelcomed(), "Client " + i + " was not welcomed");
+      assertTrue(client.getSnapshots() > 0, "Client " + i + " got no snapshots");
+      assertTrue(client.getAckedSequence() > 0, "Client " + i + " had no input applied");
+      assertEquals(0, client.getMismatches(), "Client " + i + " checksum mismatches");
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.spaceinvaders.replay;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.spaceinvaders.core.GameEngine;
+import com.spaceinvaders.core.GameLoop;
+import com.spaceinvaders.core.GameManager;
+import com.spaceinvaders.core.GameRandom;
+import com.spaceinvaders.core.TickClock;
+import com.spaceinvaders.enums.InputCommand;
+import com.spaceinvaders.level.LevelParser;
+import com.spaceinvaders.level.LevelSet;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+// A recorded session replays to the same state from its bytes alone, both
+// from tick 0 and from a snapshot taken halfway. The header carries the
+// level set, so a replay of custom levels needs nothing else.
+class ReplayTest {
+  private static final int TICKS = 6000;
+  private static final int TICKS_PER_SECOND = GameLoop.DEFAULT_TICK_RATE;
+  private static final InputCommand[] KEYS = {InputCommand.LEFT, InputCommand.RIGHT, InputCommand.SHOOT};
+
+  @Test
+  void classicSessionsReplayExactly() {
+    for (long seed = 0; seed < 3; seed++) {
+      roundTrip(seed, LevelSet.classic());
+    }
+  }
+
+  @Test
+  void customLevelSessionsReplayExactly() throws IOException {
+    LevelSet arcade = LevelParser.load(Path.of("levels", "arcade.levels"));
+    for (long seed = 0; seed < 3; seed++) {
+      roundTrip(seed, arcade);
+    }
+  }
+
+  private static void roundTrip(long seed, LevelSet levels) {
+    GameEngine recorded = new GameEngine(new GameManager(), new TickClock(TICKS_PER_SECOND), seed,
+        GameEngine.SCREEN_WIDTH, GameEngine.SCREEN_HEIGHT, levels);
+    ReplayRecorder recorder = ReplayRecorder.attach(recorded, TICKS_PER_SECOND);
+
+    // Random presses and releases, and a restart whenever the game is over
+    GameRandom input = new GameRandom(seed ^ 0x5EED);
+    Snapshot halfway = null;
+    for (int tick = 0; tick < TICKS; tick++) {
+      if (!recorded.getGameManager().isGameRunning()) {
+        recorded.submitInput(InputCommand.RESTART, true);
+        recorded.submitInput(InputCommand.RESTART, false);
+      } else if (input.nextInt(10) == 0) {
+        recorded.submitInput(KEYS[input.nextInt(KEYS.length)], input.nextInt(2) == 0);
+      }
+      recorded.update();
+      if (tick == TICKS / 2) {
+        halfway = Snapshot.decode(Snapshot.encode(recorded, TICKS_PER_SECOND, ByteBuffer.allocate(1 << 16)));
+      }
+    }
+    recorder.finish(recorded.getTick(), recorded.getGameManager());
+    GameManager expected = recorded.getGameManager();
+    assertTrue(expected.getScore() > 0, "Seed " + seed + " scored nothing");
+
+    ReplayPlayer player = new ReplayPlayer(recorder.toByteArray());
+    assertTrue(Snapshot.sameLevels(levels, player.getLevels()), "Replay header lost the levels");
+    String context = "seed " + seed;
+    assertSameGame(recorded, player.play(), player, "From tick 0, " + context);
+    assertSameGame(recorded, player.play(player.seek(halfway)), player, "From tick " + halfway.getTick() + ", " + context);
+  }
+
+  private static void assertSameGame(GameEngine expected, GameEngine actual, ReplayPlayer player, String context) {
+    GameManager gm = actual.getGameManager();
+    assertEquals(expected.getTick(), actual.getTick(), context + ": tick");
+    assertEquals(expected.getGameManager().getScore(), gm.getScore(), context + ": score");
+    assertEquals(expected.getGameManager().getLives(), gm.getLives(), context + ": lives");
+    assertEquals(expected.getGameManager().getLevel(), gm.getLevel(), context + ": level");
+    assertTrue(player.matches(gm), context + ": replay footer");
+    assertArrayEquals(state(expected), state(actual), context + ": state");
+  }
+
+  private static byte[] state(GameEngine engine) {
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    engine.writeState(buffer);
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+}
@@ -0,0 +1,20 @@
+package com.spaceinvaders.replay;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+class SnapshotWriterTest {
+
+  // onTick takes the tick modulo the interval, so zero would throw every tick
+  @Test
+  void rejectsIntervalsBelowOne() {
+    Path directory = Path.of(System.getProperty("java.io.tmpdir"), "snapshot-writer-test-" + System.nanoTime());
+    assertThrows(IllegalArgumentException.class, () -> new SnapshotWriter(directory, 60, 0));
+    assertThrows(IllegalArgumentException.class, () -> new SnapshotWriter(directory, 60, -1));
+    assertFalse(Files.exists(directory), "Directory created for a rejected writer");
+  }
+}